@@ -0,0 +1,205 @@
+package de.digitalcollections.iiif.model;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * A parsed HTTP {@code Accept} header, used to negotiate the format of a response.
+ *
+ * <p>Media ranges can contain wildcards (e.g. {@code image/*}) and quality values. Parameters other
+ * than the quality value are ignored. Parsed headers are cached, since clients usually send only a
+ * handful of distinct headers.
+ *
+ * <pre>
+ * AcceptHeader accept = AcceptHeader.parse(request.getHeader("Accept"));
+ * ImageApiProfile.Format format =
+ *     accept.selectBest(
+ *         Arrays.asList(ImageApiProfile.Format.values()), ImageApiProfile.Format::getMimeType);
+ * </pre>
+ */
+public final class AcceptHeader {
+
+  /** Header that accepts every type, used if no (valid) header was sent. */
+  private static final AcceptHeader ANY = new AcceptHeader("*/*");
+
+  private static final LoadingCache<String, AcceptHeader> PARSED_HEADERS =
+      CacheBuilder.newBuilder().maximumSize(256).build(CacheLoader.from(AcceptHeader::new));
+
+  /** A single media range, e.g. {@code image/*;q=0.8}. */
+  public static final class MediaRange {
+
+    private final MimeType type;
+    private final float quality;
+
+    private MediaRange(MimeType type, float quality) {
+      this.type = type;
+      this.quality = quality;
+    }
+
+    public MimeType getType() {
+      return type;
+    }
+
+    public float getQuality() {
+      return quality;
+    }
+
+    /** Specificity of the range, more specific ranges take precedence over less specific ones. */
+    private int getSpecificity() {
+      if (type == MimeType.MIME_WILDCARD) {
+        return 0;
+      }
+      return "*".equals(type.getSubType()) ? 1 : 2;
+    }
+
+    @Override
+    public String toString() {
+      return type + ";q=" + quality;
+    }
+  }
+
+  private final List<MediaRange> ranges;
+
+  private AcceptHeader(String header) {
+    ImmutableList.Builder<MediaRange> builder = ImmutableList.builder();
+    for (String range : split(header, ',')) {
+      MediaRange parsed = parseRange(range);
+      if (parsed != null) {
+        builder.add(parsed);
+      }
+    }
+    this.ranges = builder.build();
+  }
+
+  /**
+   * Parse an {@code Accept} header.
+   *
+   * @param header value of the header, can be null if there was no header
+   * @return the parsed header, accepts every type if the header is missing or has no valid ranges
+   */
+  public static AcceptHeader parse(String header) {
+    if (header == null || header.trim().isEmpty()) {
+      return ANY;
+    }
+    AcceptHeader parsed = PARSED_HEADERS.getUnchecked(header);
+    return parsed.ranges.isEmpty() ? ANY : parsed;
+  }
+
+  /** Parse a media range, or return null if it is malformed. */
+  private static MediaRange parseRange(String range) {
+    List<String> parts = split(range, ';');
+    MimeType type = MimeType.fromRange(parts.get(0).trim().toLowerCase(Locale.ROOT));
+    if (type == null) {
+      return null;
+    }
+    float quality = 1;
+    for (int i = 1; i < parts.size(); i++) {
+      String param = parts.get(i).trim();
+      if (param.length() > 2
+          && (param.charAt(0) == 'q' || param.charAt(0) == 'Q')
+          && param.charAt(1) == '=') {
+        try {
+          quality = Float.parseFloat(param.substring(2).trim());
+        } catch (NumberFormatException e) {
+          return null;
+        }
+        if (quality < 0 || quality > 1) {
+          return null;
+        }
+      }
+    }
+    return new MediaRange(type, quality);
+  }
+
+  /**
+   * Split a header value at a separator, except within quoted strings, e.g. in {@code
+   * application/ld+json;profile="a,b"}.
+   */
+  private static List<String> split(String value, char separator) {
+    List<String> parts = new ArrayList<>();
+    boolean quoted = false;
+    int start = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (quoted && c == '\\') {
+        // Skip the escaped character
+        i++;
+      } else if (c == '"') {
+        quoted = !quoted;
+      } else if (!quoted && c == separator) {
+        parts.add(value.substring(start, i));
+        start = i + 1;
+      }
+    }
+    parts.add(value.substring(start));
+    return parts;
+  }
+
+  public List<MediaRange> getRanges() {
+    return ranges;
+  }
+
+  /**
+   * Get the quality with which a type is accepted, from the most specific range that matches it.
+   *
+   * @param type the type to check
+   * @return the quality between 0 and 1, 0 if the type is not acceptable
+   */
+  public float getQuality(MimeType type) {
+    MediaRange best = null;
+    for (MediaRange range : ranges) {
+      if (range.type.matches(type)
+          && (best == null || range.getSpecificity() > best.getSpecificity())) {
+        best = range;
+      }
+    }
+    return best == null ? 0 : best.quality;
+  }
+
+  /**
+   * Select the most acceptable of a list of types.
+   *
+   * @param candidates the types that can be produced, in order of preference
+   * @return the type with the highest quality (the first one for ties), or null if none of them is
+   *     acceptable
+   */
+  public MimeType selectBest(MimeType... candidates) {
+    return selectBest(Arrays.asList(candidates), Function.identity());
+  }
+
+  /**
+   * Select the most acceptable of a list of candidates, e.g. of {@link
+   * de.digitalcollections.iiif.model.image.ImageApiProfile.Format}s.
+   *
+   * @param <T> type of the candidates
+   * @param candidates the candidates that can be produced, in order of preference
+   * @param typeOf gets the MIME type of a candidate
+   * @return the candidate with the highest quality (the first one for ties), or null if none of
+   *     them is acceptable
+   */
+  public <T> T selectBest(Collection<T> candidates, Function<T, MimeType> typeOf) {
+    T best = null;
+    float bestQuality = 0;
+    for (T candidate : candidates) {
+      float quality = getQuality(typeOf.apply(candidate));
+      if (quality > bestQuality) {
+        best = candidate;
+        bestQuality = quality;
+      }
+    }
+    return best;
+  }
+
+  @Override
+  public String toString() {
+    return ranges.toString();
+  }
+}
@@ -0,0 +1,172 @@
+package de.digitalcollections.iiif.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import de.digitalcollections.iiif.model.ModelUtilities.Completeness;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Precomputed plan for determining the {@link Completeness} of instances of a given type.
+ *
+ * <p>The public, JSON-serializable getters of the type and all of its supertypes are resolved once
+ * into method handles and cached per class, so that checking the completeness of a resource only
+ * needs to invoke the getters and does not need to do any reflective lookups.
+ */
+public final class CompletenessPlan {
+
+  private static final int ID = 1;
+  private static final int TYPE = 1 << 1;
+  private static final int LABELS = 1 << 2;
+  private static final int OTHER = 1 << 3;
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private static final ClassValue<CompletenessPlan> PLANS =
+      new ClassValue<CompletenessPlan>() {
+        @Override
+        protected CompletenessPlan computeValue(Class<?> type) {
+          return new CompletenessPlan(type);
+        }
+      };
+
+  private final MethodHandle[] getters;
+  private final int[] flags;
+
+  private CompletenessPlan(Class<?> type) {
+    // Group the getters by name, a getter has a value if any of its declarations returns one
+    Map<String, MethodHandle> handles = new LinkedHashMap<>();
+    for (Method method : getAllGetters(type)) {
+      if (method.getParameterCount() > 0
+          || Modifier.isStatic(method.getModifiers())
+          || method.getAnnotation(JsonIgnore.class) != null
+          || handles.containsKey(method.getName())) {
+        continue;
+      }
+      try {
+        handles.put(method.getName(), MethodHandles.lookup().unreflect(method).asType(GETTER_TYPE));
+      } catch (IllegalAccessException e) {
+        // Inaccessible getters can't return a value for us, skip them
+      }
+    }
+    this.getters = new MethodHandle[handles.size()];
+    this.flags = new int[handles.size()];
+    int idx = 0;
+    for (Map.Entry<String, MethodHandle> entry : handles.entrySet()) {
+      getters[idx] = entry.getValue();
+      flags[idx] = getFlag(entry.getKey());
+      idx++;
+    }
+  }
+
+  /**
+   * Obtain the plan for the given type.
+   *
+   * @param type The type to obtain the plan for
+   * @return the cached plan for the type
+   */
+  public static CompletenessPlan forType(Class<?> type) {
+    return PLANS.get(type);
+  }
+
+  /**
+   * Determine the completeness of an object.
+   *
+   * @param res The object to check the completeness of, must be an instance of the plan's type
+   * @return the completeness
+   */
+  public Completeness evaluate(Object res) {
+    return evaluate(res, true);
+  }
+
+  /**
+   * Determine the completeness of an object.
+   *
+   * @param res The object to check the completeness of, must be an instance of the plan's type
+   * @param includeType Whether the type should be considered, set to false if it will not be
+   *     serialized
+   * @return the completeness
+   */
+  public Completeness evaluate(Object res, boolean includeType) {
+    int present = 0;
+    for (int i = 0; i < getters.length; i++) {
+      if (!includeType && flags[i] == TYPE) {
+        continue;
+      }
+      if (returnsValue(getters[i], res)) {
+        present |= flags[i];
+        if ((present & OTHER) != 0) {
+          return Completeness.COMPLEX;
+        }
+      }
+    }
+    switch (present) {
+      case 0:
+        return Completeness.EMPTY;
+      case ID:
+        return Completeness.ID_ONLY;
+      case ID | TYPE:
+        return Completeness.ID_AND_TYPE;
+      case ID | TYPE | LABELS:
+        return Completeness.ID_AND_TYPE_AND_LABEL;
+      default:
+        return Completeness.COMPLEX;
+    }
+  }
+
+  private static int getFlag(String getterName) {
+    switch (getterName) {
+      case "getIdentifier":
+        return ID;
+      case "getType":
+        return TYPE;
+      case "getLabels":
+        return LABELS;
+      default:
+        return OTHER;
+    }
+  }
+
+  private static boolean returnsValue(MethodHandle getter, Object obj) {
+    try {
+      return getter.invokeExact(obj) != null;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable t) {
+      return false;
+    }
+  }
+
+  /** Collect all public getters declared on the type and its supertypes, except for Object. */
+  private static List<Method> getAllGetters(Class<?> type) {
+    Set<Class<?>> types = new LinkedHashSet<>();
+    collectTypes(type, types);
+    List<Method> getters = new ArrayList<>();
+    for (Class<?> t : types) {
+      for (Method method : t.isInterface() ? t.getMethods() : t.getDeclaredMethods()) {
+        if (Modifier.isPublic(method.getModifiers()) && method.getName().startsWith("get")) {
+          getters.add(method);
+        }
+      }
+    }
+    return getters;
+  }
+
+  private static void collectTypes(Class<?> type, Set<Class<?>> types) {
+    if (type == null || type == Object.class || !types.add(type)) {
+      return;
+    }
+    collectTypes(type.getSuperclass(), types);
+    for (Class<?> iface : type.getInterfaces()) {
+      collectTypes(iface, types);
+    }
+  }
+}
@@ -17,8 +17,8 @@ public class ImageContent extends Resource<ImageContent> {
 
   public static final String TYPE = "dctypes:Image";
 
-  // We sometimes want to set this to null during serialization, hence the copy in an instance
-  // variable
+  // Kept as an instance variable for compatibility, the serializer omits the type where it is
+  // redundant without touching this
   @SuppressWarnings("checkstyle:membername")
   @JsonIgnore
   public String _type = TYPE;
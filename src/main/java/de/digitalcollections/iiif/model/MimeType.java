@@ -1,115 +1,146 @@
 package de.digitalcollections.iiif.model;
 
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.nio.file.FileSystemNotFoundException;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
-import java.util.Objects;
-import java.util.function.Function;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public class MimeType {
 
-  private static final Map<String, MimeType> knownTypes;
-  private static final Map<String, String> extensionMapping;
-
   /** Regular Expression used for decoding a MIME type * */
   private static final Pattern MIME_PATTERN =
       Pattern.compile(
           "^(?<primaryType>[-a-z]+?)/(?<subType>[-\\\\.a-z0-9*]+?)(?:\\+(?<suffix>\\w+))?$");
 
-  private static String getMimeTypeColumn(String line) {
-    return Arrays.stream(line.split("\t"))
-        .map(String::trim)
-        .filter(l -> !l.isEmpty())
-        .findFirst()
-        .orElseThrow(NoSuchElementException::new);
+  /** Commonly used types, available without loading the full registry. */
+  private static final Map<String, MimeType> commonTypes = new HashMap<>();
+
+  private static final Map<String, MimeType> commonExtensions = new HashMap<>();
+
+  /** Convenience definitions for commonly used MIME types */
+  public static final MimeType MIME_WILDCARD = new MimeType("*", Collections.emptyList());
+
+  public static final MimeType MIME_IMAGE = common("image/*");
+  public static final MimeType MIME_APPLICATION_JSON = common("application/json", "json");
+  public static final MimeType MIME_APPLICATION_LD_JSON = common("application/ld+json");
+  public static final MimeType MIME_APPLICATION_OCTET_STREAM =
+      common(
+          "application/octet-stream",
+          "bin",
+          "dms",
+          "lrf",
+          "mar",
+          "so",
+          "dist",
+          "distz",
+          "pkg",
+          "bpk",
+          "dump",
+          "elc",
+          "deploy");
+  public static final MimeType MIME_APPLICATION_PDF = common("application/pdf", "pdf");
+  public static final MimeType MIME_APPLICATION_XML =
+      common("application/xml", "xml", "xsl", "ent");
+  public static final MimeType MIME_IMAGE_GIF = common("image/gif", "gif");
+  public static final MimeType MIME_IMAGE_JP2 = common("image/jp2");
+  public static final MimeType MIME_IMAGE_JPEG = common("image/jpeg", "jpg", "jpeg", "jpe");
+  public static final MimeType MIME_IMAGE_TIF = common("image/tiff", "tif", "tiff");
+  public static final MimeType MIME_IMAGE_PNG = common("image/png", "png");
+  public static final MimeType MIME_IMAGE_WEBP = common("image/webp", "webp");
+  public static final MimeType MIME_TEXT_XML = common("text/xml");
+  public static final MimeType MIME_TYPE_MARKDOWN = common("text/markdown");
+
+  private static MimeType common(String typeName, String... extensions) {
+    MimeType type = fromIndex(typeName, Arrays.asList(extensions));
+    commonTypes.put(typeName, type);
+    for (String ext : extensions) {
+      commonExtensions.put(ext, type);
+    }
+    return type;
   }
 
-  static {
-    // Load list of known MIME types and their extensions from the IANA list in the
-    // package resources (obtained from
-    // https://svn.apache.org/repos/asf/httpd/httpd/trunk/docs/conf/mime.types)
-    InputStream mimeStream = MimeType.class.getClassLoader().getResourceAsStream("mime.types");
-    BufferedReader mimeReader = new BufferedReader(new InputStreamReader(mimeStream));
-
-    Function<String[], String[]> substituteMissingExtensions =
-        columns -> {
-          if (columns.length > 1) {
-            return columns;
+  /**
+   * All known MIME types, only loaded when a type is needed that is not one of the common types.
+   *
+   * <p>The types are read from {@code mime.index}, a compact index generated from the IANA list in
+   * {@code mime.types} (obtained from
+   * https://svn.apache.org/repos/asf/httpd/httpd/trunk/docs/conf/mime.types). It has one type per
+   * line, followed by a tab and the extensions of the type, separated by spaces. If several types
+   * have the same extension, the first type in the index is used for it.
+   */
+  private static final class Registry {
+
+    private static final Map<String, MimeType> knownTypes = new HashMap<>(4096);
+    private static final Map<String, MimeType> extensionMapping = new HashMap<>(2048);
+
+    static {
+      String index;
+      try (InputStream in = MimeType.class.getClassLoader().getResourceAsStream("mime.index")) {
+        index = new String(ByteStreams.toByteArray(in), StandardCharsets.US_ASCII);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not read the MIME type index", e);
+      }
+      int pos = 0;
+      while (pos < index.length()) {
+        int end = index.indexOf('\n', pos);
+        if (end < 0) {
+          end = index.length();
+        }
+        if (index.charAt(pos) != '#') {
+          int tab = index.indexOf('\t', pos);
+          String typeName = index.substring(pos, tab);
+          MimeType type = commonTypes.get(typeName);
+          if (type == null) {
+            type =
+                fromIndex(
+                    typeName,
+                    tab + 1 < end
+                        ? Arrays.asList(index.substring(tab + 1, end).split(" "))
+                        : Collections.emptyList());
+          }
+          knownTypes.put(typeName, type);
+          for (String ext : type.getExtensions()) {
+            extensionMapping.putIfAbsent(ext, type);
           }
-          return new String[] {columns[0], ""};
-        };
-
-    knownTypes =
-        mimeReader
-            .lines()
-            .map(l -> l.replaceAll("^# ", ""))
-            .filter(l -> !l.isEmpty())
-            .map(line -> line.split("\t+"))
-            .filter(columns -> columns.length > 0)
-            .filter(columns -> MIME_PATTERN.matcher(columns[0]).matches())
-            .map(substituteMissingExtensions)
-            .collect(
-                Collectors.toMap(
-                    columns -> columns[0],
-                    columns ->
-                        new MimeType(
-                            columns[0],
-                            "".equals(columns[1])
-                                ? Collections.<String>emptyList()
-                                : Arrays.asList(columns[1].split(" ")))));
-
-    // Some custom overrides to influence the order of file extensions
-    // Since these are added to the end of the list, they take precedence over the
-    // types from the `mime.types` file
-    knownTypes.get("image/jpeg").setExtensions(Arrays.asList("jpg", "jpeg", "jpe"));
-    knownTypes.get("image/tiff").setExtensions(Arrays.asList("tif", "tiff"));
-
-    List<String> xmlExtensions = new ArrayList<>(knownTypes.get("application/xml").getExtensions());
-    xmlExtensions.add("ent");
-    knownTypes.get("application/xml").setExtensions(xmlExtensions);
-
-    knownTypes.put("image/*", new MimeType("image/*", Collections.emptyList()));
-
-    extensionMapping = new HashMap<>();
-    for (Map.Entry<String, MimeType> entry : knownTypes.entrySet()) {
-      String typeName = entry.getKey();
-      for (String ext : entry.getValue().getExtensions()) {
-        extensionMapping.put(ext, typeName);
+        }
+        pos = end + 1;
       }
     }
   }
 
-  /** Convenience definitions for commonly used MIME types */
-  public static final MimeType MIME_WILDCARD = new MimeType("*", Collections.emptyList());
+  /**
+   * Types that were parsed by {@link #fromTypename(String)} since they are not in the registry,
+   * empty if they are not supported. Bounded, since the names may come from untrusted documents.
+   */
+  private static final ConcurrentMap<String, Optional<MimeType>> parsedTypes =
+      new ConcurrentHashMap<>();
 
-  public static final MimeType MIME_IMAGE = knownTypes.get("image/*");
-  public static final MimeType MIME_APPLICATION_JSON = knownTypes.get("application/json");
-  public static final MimeType MIME_APPLICATION_OCTET_STREAM =
-      knownTypes.get("application/octet-stream");
-  public static final MimeType MIME_APPLICATION_XML = knownTypes.get("application/xml");
-  public static final MimeType MIME_IMAGE_JPEG = knownTypes.get("image/jpeg");
-  public static final MimeType MIME_IMAGE_TIF = knownTypes.get("image/tiff");
-  public static final MimeType MIME_IMAGE_PNG = knownTypes.get("image/png");
-  public static final MimeType MIME_TYPE_MARKDOWN = knownTypes.get("text/markdown");
+  private static final int MAX_PARSED_TYPES = 1024;
 
   private final String primaryType;
   private final String subType;
   private final String suffix;
-  private List<String> extensions;
+  private final List<String> extensions;
+
+  /** Canonical name and its hash, computed once since they are used for every comparison. */
+  private final String typeName;
+
+  private final int hash;
 
   /**
    * Determine MIME type for the given file extension
@@ -124,12 +155,11 @@ public class MimeType {
     } else {
       extension = ext.toLowerCase();
     }
-    String typeName = extensionMapping.get(extension);
-    if (typeName != null) {
-      return knownTypes.get(typeName);
-    } else {
-      return null;
+    MimeType type = commonExtensions.get(extension);
+    if (type != null) {
+      return type;
     }
+    return Registry.extensionMapping.get(extension);
   }
 
   /**
@@ -146,17 +176,60 @@ public class MimeType {
   /**
    * Determine MIME type from URI.
    *
+   * <p>The extension is taken from the path of the URI, so query parameters and fragments are
+   * ignored.
+   *
    * @param uri uri including filename with extension
-   * @return corresponding MimeType
+   * @return corresponding MimeType, or null if there is none for the extension or the URI is null
    */
   @SuppressWarnings("UnstableApiUsage")
   public static MimeType fromURI(URI uri) {
-    try {
-      return fromFilename(Paths.get(uri).toString());
-    } catch (FileSystemNotFoundException e) {
-      // For non-file URIs, try to guess the MIME type from the URL path, if possible
+    if (uri == null) {
+      return null;
+    }
+    String path = uri.getPath();
+    if (path == null) {
+      // Opaque URIs (e.g. `urn:`) have no path, try to guess from the whole URI instead
       return fromExtension(Files.getFileExtension(uri.toString()));
     }
+    return fromExtension(getPathExtension(path));
+  }
+
+  /**
+   * Determine the MIME types of a list of URIs, e.g. the identifiers of all {@link OtherContent}s
+   * of a manifest.
+   *
+   * @param uris uris including filenames with extensions
+   * @return the corresponding MimeTypes in the same order, null for URIs without a known type
+   */
+  public static List<MimeType> fromURIs(Collection<URI> uris) {
+    List<MimeType> types = new ArrayList<>(uris.size());
+    // Consecutive URIs usually have the same extension, so the last lookup is reused
+    String lastExtension = null;
+    MimeType lastType = null;
+    for (URI uri : uris) {
+      String path = uri != null ? uri.getPath() : null;
+      if (path == null) {
+        types.add(fromURI(uri));
+        continue;
+      }
+      String extension = getPathExtension(path);
+      if (!extension.equals(lastExtension)) {
+        lastExtension = extension;
+        lastType = fromExtension(extension);
+      }
+      types.add(lastType);
+    }
+    return types;
+  }
+
+  /** Get the extension of the last segment of a path, or an empty string if it has none. */
+  private static String getPathExtension(String path) {
+    int dot = path.lastIndexOf('.');
+    if (dot < 0 || dot < path.lastIndexOf('/')) {
+      return "";
+    }
+    return path.substring(dot + 1);
   }
 
   /**
@@ -167,20 +240,81 @@ public class MimeType {
    * @return corresponding MimeType
    */
   public static MimeType fromTypename(String typeName) {
-    MimeType knownType = knownTypes.get(typeName);
+    MimeType knownType = commonTypes.get(typeName);
+    if (knownType == null) {
+      knownType = Registry.knownTypes.get(typeName);
+    }
     if (knownType != null) {
       return knownType;
     }
-    MimeType unknownType = new MimeType(typeName);
-    if (!unknownType.getPrimaryType().startsWith("x-")
-        || !unknownType.getSubType().startsWith("vnd.")
-        || !unknownType.getSubType().startsWith("prs.")) {
+    Optional<MimeType> parsedType = parsedTypes.get(typeName);
+    if (parsedType == null) {
+      parsedType = Optional.ofNullable(parseNonStandard(typeName));
+      if (parsedTypes.size() < MAX_PARSED_TYPES) {
+        // Intern the type, so that concurrent callers get the same instance
+        Optional<MimeType> previous = parsedTypes.putIfAbsent(typeName, parsedType);
+        if (previous != null) {
+          parsedType = previous;
+        }
+      }
+    }
+    return parsedType.orElse(null);
+  }
+
+  /** Parse a type that is not in the registry, only vendor-specific or non-standard types. */
+  private static MimeType parseNonStandard(String typeName) {
+    MimeType type = new MimeType(typeName);
+    if (type.getPrimaryType().startsWith("x-")
+        || type.getSubType().startsWith("x-")
+        || type.getSubType().startsWith("vnd.")
+        || type.getSubType().startsWith("prs.")) {
+      return type;
+    }
+    return null;
+  }
+
+  /**
+   * Look up the type for a media range, e.g. from an {@code Accept} header. Other than {@link
+   * #fromTypename(String)}, this also accepts wildcards and types that are neither registered nor
+   * vendor-specific.
+   *
+   * @param range media range, e.g. "image/*"
+   * @return corresponding MimeType, or null if the range is not a valid type
+   */
+  static MimeType fromRange(String range) {
+    if ("*/*".equals(range) || "*".equals(range)) {
+      return MIME_WILDCARD;
+    }
+    MimeType knownType = commonTypes.get(range);
+    if (knownType == null) {
+      knownType = Registry.knownTypes.get(range);
+    }
+    if (knownType != null) {
+      return knownType;
+    }
+    try {
+      return new MimeType(range);
+    } catch (IllegalArgumentException e) {
       return null;
-    } else {
-      return unknownType;
     }
   }
 
+  /** Create a type from a name that is known to be valid, without matching it. */
+  private static MimeType fromIndex(String typeName, List<String> extensions) {
+    int slash = typeName.indexOf('/');
+    int plus = typeName.indexOf('+', slash);
+    if (plus < 0) {
+      return new MimeType(
+          typeName, typeName.substring(0, slash), typeName.substring(slash + 1), null, extensions);
+    }
+    return new MimeType(
+        typeName,
+        typeName.substring(0, slash),
+        typeName.substring(slash + 1, plus),
+        typeName.substring(plus + 1),
+        extensions);
+  }
+
   // NOTE: Constructors are private, since we want users to rely on the pre-defined MIME types
   private MimeType(String typeName) {
     this(typeName, Collections.emptyList());
@@ -190,7 +324,7 @@ public class MimeType {
     if (typeName.equals("*")) {
       this.primaryType = "*";
       this.subType = "*";
-      this.suffix = "";
+      this.suffix = null;
     } else {
       Matcher matcher = MIME_PATTERN.matcher(typeName);
       if (!matcher.matches()) {
@@ -199,8 +333,32 @@ public class MimeType {
       this.primaryType = matcher.group("primaryType");
       this.subType = matcher.group("subType");
       this.suffix = matcher.group("suffix");
-      this.extensions = extensions;
     }
+    this.extensions = extensions;
+    this.typeName = buildTypeName(primaryType, subType, suffix);
+    this.hash = computeHash(this.typeName);
+  }
+
+  private MimeType(
+      String typeName, String primaryType, String subType, String suffix, List<String> extensions) {
+    this.primaryType = primaryType;
+    this.subType = subType;
+    this.suffix = suffix;
+    this.extensions = extensions;
+    this.typeName = typeName;
+    this.hash = computeHash(typeName);
+  }
+
+  private static String buildTypeName(String primaryType, String subType, String suffix) {
+    StringBuilder sb = new StringBuilder(primaryType).append("/").append(subType);
+    if (suffix != null) {
+      sb.append("+").append(suffix);
+    }
+    return sb.toString();
+  }
+
+  private static int computeHash(String typeName) {
+    return 37 * 3 + typeName.hashCode();
   }
 
   /**
@@ -209,11 +367,7 @@ public class MimeType {
    * @return the MimeType's type name as String
    */
   public String getTypeName() {
-    StringBuilder sb = new StringBuilder(primaryType).append("/").append(subType);
-    if (suffix != null) {
-      sb.append("+").append(suffix);
-    }
-    return sb.toString();
+    return typeName;
   }
 
   /**
@@ -225,10 +379,6 @@ public class MimeType {
     return extensions;
   }
 
-  private void setExtensions(List<String> extensions) {
-    this.extensions = extensions;
-  }
-
   public String getPrimaryType() {
     return primaryType;
   }
@@ -256,7 +406,7 @@ public class MimeType {
           && this.getPrimaryType().equals(mime.getPrimaryType())) {
         return true;
       } else {
-        return super.equals(other);
+        return this.equals(other);
       }
     } else {
       return false;
@@ -265,16 +415,18 @@ public class MimeType {
 
   @Override
   public boolean equals(Object obj) {
-    if (obj == null || !(obj.getClass().isAssignableFrom(MimeType.class))) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof MimeType)) {
       return false;
     }
-    return this.hashCode() == obj.hashCode();
+    MimeType other = (MimeType) obj;
+    return hash == other.hash && typeName.equals(other.typeName);
   }
 
   @Override
   public int hashCode() {
-    int hash = 3;
-    hash = 37 * hash + Objects.hashCode(getTypeName());
     return hash;
   }
 
@@ -0,0 +1,187 @@
+package de.digitalcollections.iiif.model.image;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import de.digitalcollections.iiif.model.image.ImageApiProfile.Format;
+import de.digitalcollections.iiif.model.image.ImageApiProfile.Quality;
+import java.awt.Dimension;
+import java.util.Objects;
+
+/**
+ * Bounded cache of the canonical forms of Image API requests, e.g. for the cache keys or the {@code
+ * Link: rel="canonical"} headers of an image server.
+ *
+ * <p>The canonical form of a request depends on the request, the native size and default quality of
+ * the image and on the profile. Profiles are compared by the properties that affect the canonical
+ * size, i.e. their maximum width, height and area and whether they support {@link
+ * ImageApiProfile.Feature#SIZE_ABOVE_FULL}. Requests that can't be resolved for an image are cached
+ * as well, the same {@link ResolvingException} is thrown again.
+ *
+ * <pre>
+ * CanonicalFormCache canonicalForms = new CanonicalFormCache();
+ * String canonical = canonicalForms.getCanonicalForm(selector, nativeSize, profile, Quality.COLOR);
+ * </pre>
+ */
+public class CanonicalFormCache {
+
+  /** Default maximum number of cached canonical forms. */
+  public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  /** Canonical forms, or the failure for requests that could not be resolved. */
+  private final Cache<CanonicalKey, Object> canonicalForms;
+
+  public CanonicalFormCache() {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * Create a cache.
+   *
+   * @param maximumSize maximum number of cached canonical forms
+   */
+  public CanonicalFormCache(long maximumSize) {
+    this.canonicalForms = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+  }
+
+  /**
+   * Get the canonical form of a request, like {@link ImageApiSelector#getCanonicalForm(Dimension,
+   * ImageApiProfile, Quality)}.
+   *
+   * @param selector the request
+   * @param nativeSize native size of the image the selector is applied to
+   * @param profile Image API profile used
+   * @param defaultQuality the native/default quality of the image the selector is applied to
+   * @return the canonical form of the request
+   * @throws ResolvingException if the region or size can not be resolved for the image
+   */
+  public String getCanonicalForm(
+      ImageApiSelector selector,
+      Dimension nativeSize,
+      ImageApiProfile profile,
+      Quality defaultQuality)
+      throws ResolvingException {
+    CanonicalKey key = new CanonicalKey(selector, nativeSize, profile, defaultQuality);
+    Object cached = canonicalForms.getIfPresent(key);
+    if (cached == null) {
+      try {
+        cached = selector.getCanonicalForm(nativeSize, profile, defaultQuality);
+      } catch (ResolvingException e) {
+        cached = new Failure(e.getMessage());
+      }
+      canonicalForms.put(key, cached);
+    }
+    if (cached instanceof Failure) {
+      throw new ResolvingException(((Failure) cached).message);
+    }
+    return (String) cached;
+  }
+
+  /**
+   * Get the statistics of the cache.
+   *
+   * @return the number of hits, misses and evictions since the cache was created
+   */
+  public CacheStats getStats() {
+    return canonicalForms.stats();
+  }
+
+  /** Remove all cached canonical forms. */
+  public void invalidateAll() {
+    canonicalForms.invalidateAll();
+  }
+
+  /** Error message of a request that could not be resolved, without keeping its stack trace. */
+  private static final class Failure {
+
+    private final String message;
+
+    Failure(String message) {
+      this.message = message;
+    }
+  }
+
+  /** Everything that the canonical form of a request depends on. */
+  private static final class CanonicalKey {
+
+    private final String identifier;
+    private final RegionRequest region;
+    private final SizeRequest size;
+    private final RotationRequest rotation;
+    private final Quality quality;
+    private final Format format;
+    private final int nativeWidth;
+    private final int nativeHeight;
+    private final Integer maxWidth;
+    private final Integer maxHeight;
+    private final Long maxArea;
+    private final boolean sizeAboveFull;
+    private final Quality defaultQuality;
+    private final int hash;
+
+    CanonicalKey(
+        ImageApiSelector selector,
+        Dimension nativeSize,
+        ImageApiProfile profile,
+        Quality defaultQuality) {
+      // The request values are immutable, the selector and the dimension are not
+      this.identifier = selector.getIdentifier();
+      this.region = selector.getRegion();
+      this.size = selector.getSize();
+      this.rotation = selector.getRotation();
+      this.quality = selector.getQuality();
+      this.format = selector.getFormat();
+      this.nativeWidth = nativeSize.width;
+      this.nativeHeight = nativeSize.height;
+      // Requests for the maximum size can be resolved without a profile
+      this.maxWidth = profile != null ? profile.getMaxWidth() : null;
+      this.maxHeight = profile != null ? profile.getMaxHeight() : null;
+      this.maxArea = profile != null ? profile.getMaxArea() : null;
+      this.sizeAboveFull =
+          profile != null && profile.supports(ImageApiProfile.Feature.SIZE_ABOVE_FULL);
+      this.defaultQuality = defaultQuality;
+      this.hash =
+          Objects.hash(
+              identifier,
+              region,
+              size,
+              rotation,
+              quality,
+              format,
+              nativeWidth,
+              nativeHeight,
+              maxWidth,
+              maxHeight,
+              maxArea,
+              sizeAboveFull,
+              defaultQuality);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof CanonicalKey)) {
+        return false;
+      }
+      CanonicalKey other = (CanonicalKey) obj;
+      return hash == other.hash
+          && nativeWidth == other.nativeWidth
+          && nativeHeight == other.nativeHeight
+          && sizeAboveFull == other.sizeAboveFull
+          && quality == other.quality
+          && format == other.format
+          && defaultQuality == other.defaultQuality
+          && Objects.equals(identifier, other.identifier)
+          && Objects.equals(region, other.region)
+          && Objects.equals(size, other.size)
+          && Objects.equals(rotation, other.rotation)
+          && Objects.equals(maxWidth, other.maxWidth)
+          && Objects.equals(maxHeight, other.maxHeight)
+          && Objects.equals(maxArea, other.maxArea);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package de.digitalcollections.iiif.model.image;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
 import com.google.common.base.CaseFormat;
@@ -9,12 +10,14 @@ import com.google.common.collect.Lists;
 import de.digitalcollections.iiif.model.MimeType;
 import de.digitalcollections.iiif.model.Profile;
 import java.net.URI;
-import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * An Image API profile.
@@ -93,6 +96,14 @@ public class ImageApiProfile extends Profile {
       OTHER
     }
 
+    /** Predefined features by their name, filled by the constructor of the constants below. */
+    private static final Map<String, Feature> KNOWN_FEATURES = new HashMap<>();
+
+    /** Interned custom features by their URI. */
+    private static final ConcurrentMap<String, Feature> customFeatures = new ConcurrentHashMap<>();
+
+    private static final int MAX_CUSTOM_FEATURES = 1024;
+
     /** The base URI of the service will redirect to the image information document. * */
     public static final Feature BASE_URI_REDIRECT = new Feature(ImageApiFeature.BASE_URI_REDIRECT);
 
@@ -172,37 +183,76 @@ public class ImageApiProfile extends Profile {
 
     private final ImageApiFeature imageApiFeature;
     private final URI customFeature;
+    private final String name;
 
-    @JsonCreator
+    /**
+     * Create a feature from its name or URI.
+     *
+     * <p>Prefer {@link #fromName(String)}, which returns the predefined constants.
+     *
+     * @param featureName name of a predefined feature (e.g. "regionByPx") or URI of a custom one
+     */
     public Feature(String featureName) {
       if (featureName.startsWith("http://") || featureName.startsWith("https://")) {
         this.imageApiFeature = ImageApiFeature.OTHER;
         this.customFeature = URI.create(featureName);
+        this.name = this.customFeature.toString();
       } else {
-        String name = CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, featureName);
-        name = name.replaceAll("([A-Z])(\\d)", "$1_$2");
-        this.imageApiFeature = ImageApiFeature.valueOf(name);
+        String constantName = CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, featureName);
+        constantName = constantName.replaceAll("([A-Z])(\\d)", "$1_$2");
+        this.imageApiFeature = ImageApiFeature.valueOf(constantName);
         this.customFeature = null;
+        this.name = CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, constantName);
       }
     }
 
     private Feature(ImageApiFeature feature) {
       this.imageApiFeature = feature;
       this.customFeature = null;
+      this.name = CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, feature.name());
+      KNOWN_FEATURES.put(this.name, this);
+    }
+
+    /**
+     * Get a feature by its name or URI.
+     *
+     * @param featureName name of a predefined feature (e.g. "regionByPx") or URI of a custom one
+     * @return the predefined constant for the name, or the (shared) instance for a custom feature
+     */
+    @JsonCreator
+    public static Feature fromName(String featureName) {
+      Feature feature = KNOWN_FEATURES.get(featureName);
+      if (feature != null) {
+        return feature;
+      }
+      feature = customFeatures.get(featureName);
+      if (feature == null) {
+        feature = new Feature(featureName);
+        if (!feature.isCustom()) {
+          // Unusual spelling of a predefined feature
+          return KNOWN_FEATURES.getOrDefault(feature.name, feature);
+        }
+        if (customFeatures.size() < MAX_CUSTOM_FEATURES) {
+          Feature previous = customFeatures.putIfAbsent(featureName, feature);
+          if (previous != null) {
+            feature = previous;
+          }
+        }
+      }
+      return feature;
     }
 
     @JsonValue
     @Override
     public String toString() {
-      if (this.imageApiFeature == ImageApiFeature.OTHER) {
-        return this.customFeature.toString();
-      } else {
-        return CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, this.imageApiFeature.name());
-      }
+      return name;
     }
 
     @Override
     public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
       if (!(obj instanceof Feature)) {
         return false;
       }
@@ -210,6 +260,149 @@ public class ImageApiProfile extends Profile {
       return Objects.equals(this.imageApiFeature, other.imageApiFeature)
           && Objects.equals(this.customFeature, other.customFeature);
     }
+
+    @Override
+    public int hashCode() {
+      // Not the name, custom URIs are compared case-insensitively in their scheme and host
+      return Objects.hash(imageApiFeature, customFeature);
+    }
+
+    /** Whether this is a custom feature, i.e. one that is identified by a URI. */
+    public boolean isCustom() {
+      return imageApiFeature == ImageApiFeature.OTHER;
+    }
+
+    /** Bit of a predefined feature in {@link Capabilities}, 0 for custom features. */
+    long bit() {
+      return isCustom() ? 0 : 1L << imageApiFeature.ordinal();
+    }
+  }
+
+  /**
+   * Immutable and compact representation of the features, formats and qualities of a profile.
+   *
+   * <p>Predefined features, formats and qualities are stored as bitmasks, so checks don't have to
+   * look up anything and merging doesn't allocate anything for them.
+   */
+  public static final class Capabilities {
+
+    /** Capabilities that support nothing. */
+    public static final Capabilities NONE = new Capabilities(0, 0, 0, ImmutableSet.of());
+
+    private final long features;
+    private final int formats;
+    private final int qualities;
+    private final Set<Feature> customFeatures;
+
+    private Capabilities(long features, int formats, int qualities, Set<Feature> customFeatures) {
+      this.features = features;
+      this.formats = formats;
+      this.qualities = qualities;
+      this.customFeatures = customFeatures;
+    }
+
+    /**
+     * Get the capabilities of a profile.
+     *
+     * @param profile the profile
+     * @return the features, formats and qualities listed in the profile
+     */
+    public static Capabilities of(ImageApiProfile profile) {
+      long features = 0;
+      ImmutableSet.Builder<Feature> customFeatures = null;
+      if (profile.features != null) {
+        for (Feature feature : profile.features) {
+          if (!feature.isCustom()) {
+            features |= feature.bit();
+          } else {
+            if (customFeatures == null) {
+              customFeatures = ImmutableSet.builder();
+            }
+            customFeatures.add(feature);
+          }
+        }
+      }
+      int formats = 0;
+      if (profile.formats != null) {
+        for (Format format : profile.formats) {
+          formats |= 1 << format.ordinal();
+        }
+      }
+      int qualities = 0;
+      if (profile.qualities != null) {
+        for (Quality quality : profile.qualities) {
+          qualities |= 1 << quality.ordinal();
+        }
+      }
+      if (features == 0 && formats == 0 && qualities == 0 && customFeatures == null) {
+        return NONE;
+      }
+      return new Capabilities(
+          features,
+          formats,
+          qualities,
+          customFeatures == null ? ImmutableSet.of() : customFeatures.build());
+    }
+
+    public boolean supports(Feature feature) {
+      if (feature.isCustom()) {
+        return customFeatures.contains(feature);
+      }
+      return (features & feature.bit()) != 0;
+    }
+
+    public boolean supports(Format format) {
+      return (formats & (1 << format.ordinal())) != 0;
+    }
+
+    public boolean supports(Quality quality) {
+      return (qualities & (1 << quality.ordinal())) != 0;
+    }
+
+    /**
+     * Merge two capabilities, like {@link ImageApiProfile#merge(ImageApiProfile)}.
+     *
+     * @param other capabilities to be merged
+     * @return capabilities that support everything supported by either of them
+     */
+    public Capabilities merge(Capabilities other) {
+      Set<Feature> mergedCustomFeatures = this.customFeatures;
+      if (mergedCustomFeatures.isEmpty()) {
+        mergedCustomFeatures = other.customFeatures;
+      } else if (!other.customFeatures.isEmpty()
+          && !mergedCustomFeatures.containsAll(other.customFeatures)) {
+        mergedCustomFeatures =
+            ImmutableSet.<Feature>builder()
+                .addAll(mergedCustomFeatures)
+                .addAll(other.customFeatures)
+                .build();
+      }
+      return new Capabilities(
+          this.features | other.features,
+          this.formats | other.formats,
+          this.qualities | other.qualities,
+          mergedCustomFeatures);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Capabilities)) {
+        return false;
+      }
+      Capabilities other = (Capabilities) obj;
+      return features == other.features
+          && formats == other.formats
+          && qualities == other.qualities
+          && customFeatures.equals(other.customFeatures);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(features, formats, qualities, customFeatures);
+    }
   }
 
   public static final ImageApiProfile LEVEL_ZERO =
@@ -407,10 +600,13 @@ public class ImageApiProfile extends Profile {
    * @return merged profile
    */
   public static ImageApiProfile merge(List<Profile> profiles) {
-    return profiles.stream()
-        .filter(ImageApiProfile.class::isInstance)
-        .map(ImageApiProfile.class::cast)
-        .reduce(new ImageApiProfile(), ImageApiProfile::merge);
+    ImageApiProfile merged = new ImageApiProfile();
+    for (Profile profile : profiles) {
+      if (profile instanceof ImageApiProfile) {
+        merged.mergeFrom((ImageApiProfile) profile);
+      }
+    }
+    return merged;
   }
 
   /**
@@ -421,42 +617,81 @@ public class ImageApiProfile extends Profile {
    */
   public ImageApiProfile merge(ImageApiProfile other) {
     ImageApiProfile merged = new ImageApiProfile();
-    streamNotNull(this.features).forEach(merged::addFeature);
-    streamNotNull(other.features).forEach(merged::addFeature);
-    streamNotNull(this.formats).forEach(merged::addFormat);
-    streamNotNull(other.formats).forEach(merged::addFormat);
-    streamNotNull(this.qualities).forEach(merged::addQuality);
-    streamNotNull(other.qualities).forEach(merged::addQuality);
-    if (this.maxWidth != null && other.maxWidth == null) {
-      merged.maxWidth = this.maxWidth;
-    } else if (this.maxWidth == null && other.maxWidth != null) {
-      merged.maxWidth = other.maxWidth;
-    } else if (this.maxWidth != null) {
-      merged.maxWidth = Math.min(this.maxWidth, other.maxWidth);
-    }
-    if (this.maxHeight != null && other.maxHeight == null) {
-      merged.maxHeight = this.maxHeight;
-    } else if (this.maxHeight == null && other.maxHeight != null) {
-      merged.maxHeight = other.maxHeight;
-    } else if (this.maxHeight != null) {
-      merged.maxHeight = Math.min(this.maxHeight, other.maxHeight);
-    }
-    if (this.maxArea != null && other.maxArea == null) {
-      merged.maxArea = this.maxArea;
-    } else if (this.maxArea == null && other.maxArea != null) {
-      merged.maxArea = other.maxArea;
-    } else if (this.maxArea != null) {
-      merged.maxArea = Math.min(this.maxArea, other.maxArea);
-    }
+    merged.mergeFrom(this);
+    merged.mergeFrom(other);
     return merged;
   }
 
-  private <T> Stream<T> streamNotNull(Collection<T> src) {
-    if (src != null) {
-      return src.stream();
+  /** Add the features, formats and qualities of another profile and apply its limits. */
+  private void mergeFrom(ImageApiProfile other) {
+    this.features = union(this.features, other.features);
+    this.formats = union(this.formats, other.formats);
+    this.qualities = union(this.qualities, other.qualities);
+    if (other.maxWidth != null) {
+      this.maxWidth = this.maxWidth == null ? other.maxWidth : Math.min(maxWidth, other.maxWidth);
+    }
+    if (other.maxHeight != null) {
+      this.maxHeight =
+          this.maxHeight == null ? other.maxHeight : Math.min(maxHeight, other.maxHeight);
+    }
+    if (other.maxArea != null) {
+      this.maxArea = this.maxArea == null ? other.maxArea : Math.min(maxArea, other.maxArea);
+    }
+  }
+
+  private static <T> Set<T> union(Set<T> target, Set<T> src) {
+    if (src == null || src.isEmpty()) {
+      return target;
+    }
+    if (target == null) {
+      target = new LinkedHashSet<>(src);
     } else {
-      return Stream.empty();
+      target.addAll(src);
     }
+    return target;
+  }
+
+  /**
+   * Check if a feature is supported.
+   *
+   * @param feature the feature to check
+   * @return true if the profile lists the feature
+   */
+  public boolean supports(Feature feature) {
+    return features != null && features.contains(feature);
+  }
+
+  /**
+   * Check if a format is supported.
+   *
+   * @param format the format to check
+   * @return true if the profile lists the format
+   */
+  public boolean supports(Format format) {
+    return formats != null && formats.contains(format);
+  }
+
+  /**
+   * Check if a quality is supported.
+   *
+   * @param quality the quality to check
+   * @return true if the profile lists the quality
+   */
+  public boolean supports(Quality quality) {
+    return qualities != null && qualities.contains(quality);
+  }
+
+  /**
+   * Get a compact snapshot of the features, formats and qualities of the profile.
+   *
+   * <p>Later changes to the profile are not reflected in the snapshot. Image servers that check
+   * every request against the same profile should keep the snapshot around.
+   *
+   * @return the capabilities of the profile
+   */
+  @JsonIgnore
+  public Capabilities getCapabilities() {
+    return Capabilities.of(this);
   }
 
   @Override
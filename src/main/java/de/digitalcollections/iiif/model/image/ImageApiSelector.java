@@ -2,18 +2,13 @@ package de.digitalcollections.iiif.model.image;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeName;
-import com.google.common.collect.ImmutableSet;
 import de.digitalcollections.iiif.model.image.ImageApiProfile.Format;
 import de.digitalcollections.iiif.model.image.ImageApiProfile.Quality;
 import de.digitalcollections.iiif.model.interfaces.Selector;
 import java.awt.Dimension;
-import java.awt.geom.Rectangle2D;
+import java.awt.Rectangle;
 import java.net.URI;
 import java.util.Objects;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import org.dmfs.rfc3986.encoding.Encoded;
 import org.dmfs.rfc3986.encoding.Precoded;
 
 /**
@@ -27,21 +22,54 @@ public class ImageApiSelector implements Selector {
   public static String CONTEXT = "http://iiif.io/api/annex/openannotation/context.json";
   public static final String TYPE = "iiif:ImageApiSelector";
 
-  private static final Pattern REQUEST_PAT =
-      Pattern.compile(
-          "/?(?<identifier>[^/]+)"
-              + "/(?<region>[^/]+)"
-              + "/(?<size>[^/]+)"
-              + "/(?<rotation>[^/]+)"
-              + "/(?<quality>[^/]+?)\\.(?<format>[^/]+?)$");
+  /** Escape sequences for ASCII characters, null for characters that are not escaped. */
+  private static final String[] ASCII_ESCAPES = new String[128];
+
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  /** Builder for canonical forms, reused by every thread since they are built for each request. */
+  private static final ThreadLocal<StringBuilder> CANONICAL_FORM_BUILDER =
+      ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+  static {
+    // Everything but unreserved characters, sub-delims and the colon is escaped
+    String unescaped =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-._~:!$&'()*+,;=";
+    for (char c = 0; c < ASCII_ESCAPES.length; c++) {
+      if (unescaped.indexOf(c) < 0) {
+        ASCII_ESCAPES[c] = "%" + HEX_DIGITS[c >> 4] + HEX_DIGITS[c & 0xF];
+      }
+    }
+  }
 
   private String identifier;
+
+  /** Escaped identifier, computed on first use. */
+  private String encodedIdentifier;
+
   private RegionRequest region;
   private SizeRequest size;
   private RotationRequest rotation;
   private Quality quality;
   private Format format;
 
+  public ImageApiSelector() {}
+
+  private ImageApiSelector(ImageApiSelector other) {
+    this.identifier = other.identifier;
+    this.encodedIdentifier = other.identifier != null ? other.getEncodedIdentifier() : null;
+    this.region = other.region;
+    this.size = other.size;
+    this.rotation = other.rotation;
+    this.quality = other.quality;
+    this.format = other.format;
+  }
+
+  /** Create a copy that can be shared, since all of its setters throw an exception. */
+  ImageApiSelector immutableCopy() {
+    return new ImmutableSelector(this);
+  }
+
   @JsonProperty("@context")
   public String getContext() {
     return CONTEXT;
@@ -57,28 +85,83 @@ public class ImageApiSelector implements Selector {
   }
 
   public static ImageApiSelector fromString(String str) throws ResolvingException {
-    Matcher matcher = REQUEST_PAT.matcher(str);
-    if (!matcher.find()) {
+    // The request consists of the last five segments of the path, find the slashes before them
+    int qualitySlash = str.lastIndexOf('/');
+    int rotationSlash = qualitySlash > 0 ? str.lastIndexOf('/', qualitySlash - 1) : -1;
+    int sizeSlash = rotationSlash > 0 ? str.lastIndexOf('/', rotationSlash - 1) : -1;
+    int regionSlash = sizeSlash > 0 ? str.lastIndexOf('/', sizeSlash - 1) : -1;
+    int identifierStart = regionSlash > 0 ? str.lastIndexOf('/', regionSlash - 1) + 1 : -1;
+    // The quality needs at least one character, the rest after the next dot is the format
+    int formatDot = str.indexOf('.', qualitySlash + 2);
+    if (identifierStart < 0
+        || identifierStart == regionSlash
+        || sizeSlash == regionSlash + 1
+        || rotationSlash == sizeSlash + 1
+        || qualitySlash == rotationSlash + 1
+        || formatDot < 0
+        || formatDot == str.length() - 1) {
       throw new ResolvingException("Malformed IIIF Image API request: " + str);
     }
     ImageApiSelector selector = new ImageApiSelector();
-    selector.setIdentifier(new Precoded(matcher.group("identifier")).decoded().toString());
-    selector.setRegion(matcher.group("region"));
-    selector.setSize(matcher.group("size"));
-    selector.setRotation(matcher.group("rotation"));
-    try {
-      selector.setQuality(Quality.valueOf(matcher.group("quality").toUpperCase()));
-    } catch (IllegalArgumentException e) {
-      throw new ResolvingException("Illegal value for quality: " + matcher.group("quality"));
-    }
-    try {
-      selector.setFormat(Format.valueOf(matcher.group("format").toUpperCase()));
-    } catch (IllegalArgumentException e) {
-      throw new ResolvingException("Illegal value for format: " + matcher.group("format"));
+    String identifier = str.substring(identifierStart, regionSlash);
+    if (identifier.indexOf('%') >= 0) {
+      identifier = new Precoded(identifier).decoded().toString();
     }
+    selector.setIdentifier(identifier);
+    selector.setRegion(str.substring(regionSlash + 1, sizeSlash));
+    selector.setSize(str.substring(sizeSlash + 1, rotationSlash));
+    selector.setRotation(str.substring(rotationSlash + 1, qualitySlash));
+    selector.setQuality(parseQuality(str.substring(qualitySlash + 1, formatDot)));
+    selector.setFormat(parseFormat(str.substring(formatDot + 1)));
     return selector;
   }
 
+  private static Quality parseQuality(String quality) throws ResolvingException {
+    switch (quality) {
+      case "default":
+        return Quality.DEFAULT;
+      case "color":
+        return Quality.COLOR;
+      case "gray":
+        return Quality.GRAY;
+      case "bitonal":
+        return Quality.BITONAL;
+      default:
+        for (Quality value : Quality.values()) {
+          if (value.name().equalsIgnoreCase(quality)) {
+            return value;
+          }
+        }
+        throw new ResolvingException("Illegal value for quality: " + quality);
+    }
+  }
+
+  private static Format parseFormat(String format) throws ResolvingException {
+    switch (format) {
+      case "jpg":
+        return Format.JPG;
+      case "png":
+        return Format.PNG;
+      case "webp":
+        return Format.WEBP;
+      case "tif":
+        return Format.TIF;
+      case "gif":
+        return Format.GIF;
+      case "jp2":
+        return Format.JP2;
+      case "pdf":
+        return Format.PDF;
+      default:
+        for (Format value : Format.values()) {
+          if (value.name().equalsIgnoreCase(format)) {
+            return value;
+          }
+        }
+        throw new ResolvingException("Illegal value for format: " + format);
+    }
+  }
+
   public URI asImageApiUri(URI baseUri) {
     String baseUriString = baseUri.toString();
     if (!baseUriString.endsWith("/")) {
@@ -89,30 +172,72 @@ public class ImageApiSelector implements Selector {
 
   @Override
   public String toString() {
-    return String.format(
-        "%s%s/%s/%s/%s.%s",
-        identifier != null ? urlEncode(identifier) + "/" : "",
-        Objects.toString(region, "full"),
-        Objects.toString(size, "full"),
-        Objects.toString(rotation, "0"),
-        Objects.toString(quality, "default"),
-        Objects.toString(format, "jpg"));
+    StringBuilder sb = new StringBuilder(64);
+    if (identifier != null) {
+      sb.append(getEncodedIdentifier()).append('/');
+    }
+    return sb.append(Objects.toString(region, "full"))
+        .append('/')
+        .append(Objects.toString(size, "full"))
+        .append('/')
+        .append(Objects.toString(rotation, "0"))
+        .append('/')
+        .append(Objects.toString(quality, "default"))
+        .append('.')
+        .append(Objects.toString(format, "jpg"))
+        .toString();
+  }
+
+  private String getEncodedIdentifier() {
+    if (encodedIdentifier == null) {
+      encodedIdentifier = urlEncode(identifier);
+    }
+    return encodedIdentifier;
   }
 
   /**
    * The spec says we have to urlencode values, but only characters outside of the US ASCII range
-   * and gen-delims from RFC3986. However, our URL library can only encode the full set of
-   * gen-delims (EXCEPT the colon) and sub-delims, which iswhy we have to manually decode the
-   * encoded sub-delims... Great and pragmatic choice for readability, more code for us :-)
+   * and gen-delims from RFC3986. We escape everything but unreserved characters, sub-delims and the
+   * colon, i.e. the slashes in URI identifiers are escaped, but their colons are not.
    */
   private static String urlEncode(String str) {
-    Set<String> excluded =
-        ImmutableSet.of(":", "!", "$", "&", "'", "(", ")", "*", "+", ",", ";", "=");
-    String encoded = new Encoded(str).toString();
-    for (String ex : excluded) {
-      encoded = encoded.replaceAll(new Encoded(ex).toString(), ex);
+    int i = 0;
+    while (i < str.length() && str.charAt(i) < 128 && ASCII_ESCAPES[str.charAt(i)] == null) {
+      i++;
+    }
+    if (i == str.length()) {
+      return str;
+    }
+    StringBuilder sb = new StringBuilder(str.length() + 16).append(str, 0, i);
+    while (i < str.length()) {
+      int codePoint = str.codePointAt(i);
+      i += Character.charCount(codePoint);
+      if (codePoint < 0x80) {
+        String escape = ASCII_ESCAPES[codePoint];
+        if (escape == null) {
+          sb.append((char) codePoint);
+        } else {
+          sb.append(escape);
+        }
+      } else if (codePoint < 0x800) {
+        appendEscapedByte(sb, 0xC0 | (codePoint >> 6));
+        appendEscapedByte(sb, 0x80 | (codePoint & 0x3F));
+      } else if (codePoint < 0x10000) {
+        appendEscapedByte(sb, 0xE0 | (codePoint >> 12));
+        appendEscapedByte(sb, 0x80 | ((codePoint >> 6) & 0x3F));
+        appendEscapedByte(sb, 0x80 | (codePoint & 0x3F));
+      } else {
+        appendEscapedByte(sb, 0xF0 | (codePoint >> 18));
+        appendEscapedByte(sb, 0x80 | ((codePoint >> 12) & 0x3F));
+        appendEscapedByte(sb, 0x80 | ((codePoint >> 6) & 0x3F));
+        appendEscapedByte(sb, 0x80 | (codePoint & 0x3F));
+      }
     }
-    return encoded;
+    return sb.toString();
+  }
+
+  private static void appendEscapedByte(StringBuilder sb, int b) {
+    sb.append('%').append(HEX_DIGITS[b >> 4]).append(HEX_DIGITS[b & 0xF]);
   }
 
   /**
@@ -123,27 +248,31 @@ public class ImageApiSelector implements Selector {
    * @param profile Image API profile used
    * @param defaultQuality The native/default quality of the image the selector is applied to
    * @return The canonical form of the Image API request
-   * @throws de.digitalcollections.iiif.model.image.ResolvingException if RegionRequest can not be
-   *     instantiated from canonical form of region
+   * @throws de.digitalcollections.iiif.model.image.ResolvingException if the region or size can not
+   *     be resolved for the image
+   * @see CanonicalFormCache
    */
   public String getCanonicalForm(
       Dimension nativeSize, ImageApiProfile profile, Quality defaultQuality)
       throws ResolvingException {
-    Dimension scaleReference = nativeSize;
-    Rectangle2D canonicalRegion =
-        RegionRequest.fromString(region.getCanonicalForm(nativeSize)).getRegion();
-    if (canonicalRegion != null) {
-      scaleReference =
-          new Dimension((int) canonicalRegion.getWidth(), (int) canonicalRegion.getHeight());
-    }
-    return String.format(
-        "%s%s/%s/%s/%s.%s",
-        identifier != null ? urlEncode(identifier) + "/" : "",
-        region.getCanonicalForm(nativeSize),
-        size.getCanonicalForm(scaleReference, profile),
-        rotation.toString(),
-        quality.equals(defaultQuality) ? "default" : quality.toString(),
-        format.toString());
+    Rectangle resolvedRegion = region.resolve(nativeSize);
+    // The size is relative to the region
+    Dimension scaleReference = new Dimension(resolvedRegion.width, resolvedRegion.height);
+    StringBuilder sb = CANONICAL_FORM_BUILDER.get();
+    sb.setLength(0);
+    if (identifier != null) {
+      sb.append(getEncodedIdentifier()).append('/');
+    }
+    return sb.append(RegionRequest.getCanonicalForm(resolvedRegion, nativeSize))
+        .append('/')
+        .append(size.getCanonicalForm(scaleReference, profile))
+        .append('/')
+        .append(rotation)
+        .append('/')
+        .append(quality.equals(defaultQuality) ? "default" : quality.toString())
+        .append('.')
+        .append(format)
+        .toString();
   }
 
   public String getIdentifier() {
@@ -152,6 +281,7 @@ public class ImageApiSelector implements Selector {
 
   public void setIdentifier(String identifier) {
     this.identifier = identifier;
+    this.encodedIdentifier = null;
   }
 
   public RegionRequest getRegion() {
@@ -205,4 +335,65 @@ public class ImageApiSelector implements Selector {
   public void setFormat(Format format) {
     this.format = format;
   }
+
+  private static final class ImmutableSelector extends ImageApiSelector {
+
+    ImmutableSelector(ImageApiSelector selector) {
+      super(selector);
+    }
+
+    private static UnsupportedOperationException immutable() {
+      return new UnsupportedOperationException("Cached selectors can't be modified, copy them");
+    }
+
+    @Override
+    ImageApiSelector immutableCopy() {
+      return this;
+    }
+
+    @Override
+    public void setIdentifier(String identifier) {
+      throw immutable();
+    }
+
+    @Override
+    public void setRegion(RegionRequest region) {
+      throw immutable();
+    }
+
+    @Override
+    public void setRegion(String region) {
+      throw immutable();
+    }
+
+    @Override
+    public void setSize(SizeRequest size) {
+      throw immutable();
+    }
+
+    @Override
+    public void setSize(String size) {
+      throw immutable();
+    }
+
+    @Override
+    public void setRotation(RotationRequest rotation) {
+      throw immutable();
+    }
+
+    @Override
+    public void setRotation(String rotation) {
+      throw immutable();
+    }
+
+    @Override
+    public void setQuality(Quality quality) {
+      throw immutable();
+    }
+
+    @Override
+    public void setFormat(Format format) {
+      throw immutable();
+    }
+  }
 }
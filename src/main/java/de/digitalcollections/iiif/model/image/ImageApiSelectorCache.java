@@ -0,0 +1,90 @@
+package de.digitalcollections.iiif.model.image;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.net.URI;
+
+/**
+ * Bounded cache of parsed Image API requests, for image servers that parse the same requests over
+ * and over again, e.g. the tiles of a deep zoom viewer that is opened by many users.
+ *
+ * <p>Selectors are shared between all callers that request the same path, so they can't be
+ * modified: their setters throw an {@link UnsupportedOperationException}. Malformed requests are
+ * cached as well, the same {@link ResolvingException} is thrown again without parsing them. If the
+ * maximum size is exceeded, the least recently used requests are evicted.
+ *
+ * <pre>
+ * ImageApiSelectorCache selectors = new ImageApiSelectorCache();
+ * ImageApiSelector selector = selectors.fromImageApiUri(requestUri);
+ * </pre>
+ */
+public class ImageApiSelectorCache {
+
+  /** Default maximum number of cached requests. */
+  public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  /** Parsed selectors, or the error message for malformed requests. */
+  private final Cache<String, Object> selectors;
+
+  public ImageApiSelectorCache() {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * Create a cache.
+   *
+   * @param maximumSize maximum number of cached requests
+   */
+  public ImageApiSelectorCache(long maximumSize) {
+    this.selectors = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+  }
+
+  /**
+   * Get the selector for a request, like {@link ImageApiSelector#fromString(String)}.
+   *
+   * @param str the request path
+   * @return the shared selector for the request, can't be modified
+   * @throws ResolvingException if the request is malformed
+   */
+  public ImageApiSelector fromString(String str) throws ResolvingException {
+    Object cached = selectors.getIfPresent(str);
+    if (cached == null) {
+      try {
+        cached = ImageApiSelector.fromString(str).immutableCopy();
+      } catch (ResolvingException e) {
+        cached = e.getMessage();
+      }
+      selectors.put(str, cached);
+    }
+    if (cached instanceof String) {
+      throw new ResolvingException((String) cached);
+    }
+    return (ImageApiSelector) cached;
+  }
+
+  /**
+   * Get the selector for a request, like {@link ImageApiSelector#fromImageApiUri(URI)}.
+   *
+   * @param imageApiUri the request URI
+   * @return the shared selector for the request, can't be modified
+   * @throws ResolvingException if the request is malformed
+   */
+  public ImageApiSelector fromImageApiUri(URI imageApiUri) throws ResolvingException {
+    return fromString(imageApiUri.getPath());
+  }
+
+  /**
+   * Get the statistics of the cache.
+   *
+   * @return the number of hits, misses and evictions since the cache was created
+   */
+  public CacheStats getStats() {
+    return selectors.stats();
+  }
+
+  /** Remove all cached requests. */
+  public void invalidateAll() {
+    selectors.invalidateAll();
+  }
+}
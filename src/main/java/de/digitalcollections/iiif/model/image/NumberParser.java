@@ -0,0 +1,106 @@
+package de.digitalcollections.iiif.model.image;
+
+import java.math.BigDecimal;
+
+/**
+ * Parses the unsigned numbers of region, size and rotation requests directly from the request
+ * string, without matchers or substrings.
+ */
+final class NumberParser {
+
+  private NumberParser() {}
+
+  /**
+   * Parse an unsigned integer, e.g. "1024".
+   *
+   * @param str the string containing the number
+   * @param from index of the first character of the number
+   * @param to index after the last character of the number
+   * @return the number, or -1 if the range is empty, contains anything but digits or overflows
+   */
+  static int parseInt(String str, int from, int to) {
+    if (from >= to) {
+      return -1;
+    }
+    long value = 0;
+    for (int i = from; i < to; i++) {
+      char c = str.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+      if (value > Integer.MAX_VALUE) {
+        return -1;
+      }
+    }
+    return (int) value;
+  }
+
+  /**
+   * Check if a range only consists of digits and decimal points.
+   *
+   * @param str the string to check
+   * @param from index of the first character to check
+   * @param to index after the last character to check
+   * @return true if the range is not empty and only consists of digits and decimal points
+   */
+  static boolean isNumeric(String str, int from, int to) {
+    if (from >= to) {
+      return false;
+    }
+    for (int i = from; i < to; i++) {
+      char c = str.charAt(i);
+      if ((c < '0' || c > '9') && c != '.') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parse an unsigned decimal, e.g. "41.6", ".5" or "5.".
+   *
+   * <p>The result is equal to {@code new BigDecimal(str.substring(from, to))}, i.e. it has the same
+   * scale.
+   *
+   * @param str the string containing the number
+   * @param from index of the first character of the number
+   * @param to index after the last character of the number
+   * @return the number, or null if the range has no digits, more than one decimal point or anything
+   *     but digits and decimal points
+   */
+  static BigDecimal parseDecimal(String str, int from, int to) {
+    long unscaled = 0;
+    int scale = -1;
+    boolean hasDigits = false;
+    boolean overflow = false;
+    for (int i = from; i < to; i++) {
+      char c = str.charAt(i);
+      if (c == '.') {
+        if (scale >= 0) {
+          return null;
+        }
+        scale = 0;
+      } else if (c >= '0' && c <= '9') {
+        hasDigits = true;
+        if (unscaled > (Long.MAX_VALUE - 9) / 10) {
+          overflow = true;
+        } else {
+          unscaled = unscaled * 10 + (c - '0');
+        }
+        if (scale >= 0) {
+          scale++;
+        }
+      } else {
+        return null;
+      }
+    }
+    if (!hasDigits) {
+      return null;
+    }
+    if (overflow) {
+      return new BigDecimal(str.substring(from, to));
+    }
+    return BigDecimal.valueOf(unscaled, Math.max(scale, 0));
+  }
+}
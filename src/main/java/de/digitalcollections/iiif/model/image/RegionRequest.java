@@ -7,9 +7,6 @@ import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
 import java.math.BigDecimal;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 public class RegionRequest {
 
@@ -52,12 +49,9 @@ public class RegionRequest {
     }
   }
 
-  private Rectangle absoluteBox;
-  private RelativeBox relativeBox;
-  private boolean square = false;
-
-  private static final Pattern PARSE_PAT =
-      Pattern.compile("^(pct:)?([0-9.]+),([0-9.]+),([0-9.]+),([0-9.]+)$");
+  private final Rectangle absoluteBox;
+  private final RelativeBox relativeBox;
+  private final boolean square;
 
   /**
    * Parse an IIIF Image API compliant region request string
@@ -74,23 +68,32 @@ public class RegionRequest {
     if (str.equals("square")) {
       return new RegionRequest(true);
     }
-    Matcher matcher = PARSE_PAT.matcher(str);
-    if (!matcher.matches()) {
+    boolean relative = str.startsWith("pct:");
+    int start = relative ? 4 : 0;
+    int first = str.indexOf(',', start);
+    int second = first < 0 ? -1 : str.indexOf(',', first + 1);
+    int third = second < 0 ? -1 : str.indexOf(',', second + 1);
+    if (third < 0) {
       throw new ResolvingException("Bad format: " + str);
     }
-    if (matcher.group(1) == null) {
-      return new RegionRequest(
-          Integer.valueOf(matcher.group(2)),
-          Integer.valueOf(matcher.group(3)),
-          Integer.valueOf(matcher.group(4)),
-          Integer.valueOf(matcher.group(5)));
-    } else {
-      return new RegionRequest(
-          new BigDecimal(matcher.group(2)),
-          new BigDecimal(matcher.group(3)),
-          new BigDecimal(matcher.group(4)),
-          new BigDecimal(matcher.group(5)));
+    if (relative) {
+      BigDecimal x = NumberParser.parseDecimal(str, start, first);
+      BigDecimal y = NumberParser.parseDecimal(str, first + 1, second);
+      BigDecimal width = NumberParser.parseDecimal(str, second + 1, third);
+      BigDecimal height = NumberParser.parseDecimal(str, third + 1, str.length());
+      if (x == null || y == null || width == null || height == null) {
+        throw new ResolvingException("Bad format: " + str);
+      }
+      return relative(x, y, width, height);
     }
+    int x = NumberParser.parseInt(str, start, first);
+    int y = NumberParser.parseInt(str, first + 1, second);
+    int width = NumberParser.parseInt(str, second + 1, third);
+    int height = NumberParser.parseInt(str, third + 1, str.length());
+    if ((x | y | width | height) < 0) {
+      throw new ResolvingException("Bad format: " + str);
+    }
+    return new RegionRequest(x, y, width, height);
   }
 
   /** Create a region that encompasses the whole picture, i.e. the 'full' syntax. */
@@ -105,15 +108,32 @@ public class RegionRequest {
    * @param square true, if square region should be selected
    */
   public RegionRequest(boolean square) {
+    this.absoluteBox = null;
+    this.relativeBox = null;
     this.square = square;
   }
 
+  /**
+   * Create a relative region from the values of a request, keeping their precision.
+   *
+   * @throws ResolvingException if the values fall outside of the allowed range
+   */
+  static RegionRequest relative(BigDecimal x, BigDecimal y, BigDecimal width, BigDecimal height)
+      throws ResolvingException {
+    return new RegionRequest(x, y, width, height);
+  }
+
   private RegionRequest(BigDecimal x, BigDecimal y, BigDecimal width, BigDecimal height)
       throws ResolvingException {
-    if (Stream.of(x, y, width, height).anyMatch(v -> v.doubleValue() > 100.0)) {
+    if (x.doubleValue() > 100.0
+        || y.doubleValue() > 100.0
+        || width.doubleValue() > 100.0
+        || height.doubleValue() > 100.0) {
       throw new ResolvingException("No parameter can be greater than 100!");
     }
+    this.absoluteBox = null;
     this.relativeBox = new RelativeBox(x, y, width, height);
+    this.square = false;
   }
 
   /**
@@ -146,6 +166,8 @@ public class RegionRequest {
    */
   public RegionRequest(int x, int y, int width, int height) {
     this.absoluteBox = new Rectangle(x, y, width, height);
+    this.relativeBox = null;
+    this.square = false;
   }
 
   /**
@@ -158,8 +180,11 @@ public class RegionRequest {
       return new Rectangle2D.Double(
           relativeBox.x.doubleValue(), relativeBox.y.doubleValue(),
           relativeBox.w.doubleValue(), relativeBox.h.doubleValue());
+    } else if (absoluteBox != null) {
+      // Rectangles are mutable, but requests can be shared
+      return new Rectangle(absoluteBox);
     } else {
-      return absoluteBox;
+      return null;
     }
   }
 
@@ -204,7 +229,11 @@ public class RegionRequest {
   }
 
   public String getCanonicalForm(Dimension imageDims) throws ResolvingException {
-    Rectangle resolved = this.resolve(imageDims);
+    return getCanonicalForm(this.resolve(imageDims), imageDims);
+  }
+
+  /** Get the canonical form of a region that was already resolved. */
+  static String getCanonicalForm(Rectangle resolved, Dimension imageDims) {
     boolean isFull =
         resolved.x == 0
             && resolved.y == 0
@@ -213,7 +242,7 @@ public class RegionRequest {
     if (isFull) {
       return "full";
     } else {
-      return String.format("%d,%d,%d,%d", resolved.x, resolved.y, resolved.width, resolved.height);
+      return resolved.x + "," + resolved.y + "," + resolved.width + "," + resolved.height;
     }
   }
 
@@ -226,39 +255,57 @@ public class RegionRequest {
    *     dimensions
    */
   public Rectangle resolve(Dimension imageDims) throws ResolvingException {
+    return resolve(imageDims, new Rectangle());
+  }
+
+  /**
+   * Like {@link #resolve(Dimension)}, but writes the region into a rectangle provided by the
+   * caller, e.g. one that is reused for every request handled by a thread. The request itself is
+   * never modified, so it can be shared between threads.
+   *
+   * @param imageDims actual image dimensions
+   * @param out rectangle the region is written to, its contents are undefined if the region can not
+   *     be resolved
+   * @return {@code out}
+   * @throws de.digitalcollections.iiif.model.image.ResolvingException if rectangle is outside image
+   *     dimensions
+   */
+  public Rectangle resolve(Dimension imageDims, Rectangle out) throws ResolvingException {
+    int imageWidth = imageDims.width;
+    int imageHeight = imageDims.height;
     if (square) {
-      if (imageDims.width > imageDims.height) {
-        return new Rectangle(
-            (imageDims.width - imageDims.height) / 2, 0, imageDims.height, imageDims.height);
-      } else if (imageDims.height > imageDims.width) {
-        return new Rectangle(
-            0, (imageDims.height - imageDims.width) / 2, imageDims.width, imageDims.width);
+      if (imageWidth > imageHeight) {
+        out.setBounds((imageWidth - imageHeight) / 2, 0, imageHeight, imageHeight);
+        return out;
+      } else if (imageHeight > imageWidth) {
+        out.setBounds(0, (imageHeight - imageWidth) / 2, imageWidth, imageWidth);
+        return out;
       }
     }
     if (absoluteBox == null && relativeBox == null) {
-      return new Rectangle(0, 0, imageDims.width, imageDims.height);
+      out.setBounds(0, 0, imageWidth, imageHeight);
+      return out;
     }
-    Rectangle rect;
     if (isRelative()) {
-      rect =
-          new Rectangle(
-              (int) Math.round(relativeBox.x.doubleValue() / 100. * imageDims.getWidth()),
-              (int) Math.round(relativeBox.y.doubleValue() / 100. * imageDims.getHeight()),
-              (int) Math.round(relativeBox.w.doubleValue() / 100. * imageDims.getWidth()),
-              (int) Math.round(relativeBox.h.doubleValue() / 100. * imageDims.getHeight()));
+      out.setBounds(
+          (int) Math.round(relativeBox.x.doubleValue() / 100. * imageWidth),
+          (int) Math.round(relativeBox.y.doubleValue() / 100. * imageHeight),
+          (int) Math.round(relativeBox.w.doubleValue() / 100. * imageWidth),
+          (int) Math.round(relativeBox.h.doubleValue() / 100. * imageHeight));
     } else {
-      rect = absoluteBox;
+      out.setBounds(absoluteBox.x, absoluteBox.y, absoluteBox.width, absoluteBox.height);
     }
-    if (rect.x >= imageDims.width || rect.y >= imageDims.height) {
+    if (out.x >= imageWidth || out.y >= imageHeight) {
       throw new ResolvingException("X and Y must be smaller than the native width/height");
     }
-    if (rect.x + rect.width > imageDims.width) {
-      rect.width = imageDims.width - rect.x;
+    // Widen to long, "x,y,w,h" regions may contain any int
+    if ((long) out.x + out.width > imageWidth) {
+      out.width = imageWidth - out.x;
     }
-    if (rect.y + rect.height > imageDims.height) {
-      rect.height = imageDims.height - rect.y;
+    if ((long) out.y + out.height > imageHeight) {
+      out.height = imageHeight - out.y;
     }
-    return rect;
+    return out;
   }
 
   @Override
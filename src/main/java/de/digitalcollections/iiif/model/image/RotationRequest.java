@@ -4,15 +4,11 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 import com.google.common.base.Objects;
 import java.math.BigDecimal;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class RotationRequest {
 
-  // Matches floating point values
-  private static final Pattern PATTERN = Pattern.compile("^(!)?([0-9]*\\.?[0-9]+)$");
-  BigDecimal rotation;
-  boolean mirror = false;
+  private final BigDecimal rotation;
+  private final boolean mirror;
 
   /**
    * Parse a rotation request from an IIIF Image API compliant rotation string.
@@ -23,11 +19,14 @@ public class RotationRequest {
    */
   @JsonCreator
   public static RotationRequest fromString(String str) throws ResolvingException {
-    Matcher matcher = PATTERN.matcher(str);
-    if (!matcher.matches()) {
+    boolean mirror = str.startsWith("!");
+    // Unlike the other parameters, rotations can't end with a decimal point
+    BigDecimal rotation =
+        str.endsWith(".") ? null : NumberParser.parseDecimal(str, mirror ? 1 : 0, str.length());
+    if (rotation == null) {
       throw new ResolvingException("Bad format: " + str);
     }
-    return new RotationRequest(new BigDecimal(matcher.group(2)), !(matcher.group(1) == null));
+    return new RotationRequest(rotation, mirror);
   }
 
   public RotationRequest(int rotation) throws ResolvingException {
@@ -7,15 +7,10 @@ import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.math.BigDecimal;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class SizeRequest {
 
-  private static final Pattern PARSE_PAT =
-      Pattern.compile("^(!|pct:)?(?:([0-9]+)?,([0-9]+)?|([0-9.]+))$");
   private boolean max = false;
   private boolean bestFit = false;
   private Integer width = null;
@@ -37,27 +32,40 @@ public class SizeRequest {
     if (str.equals("max")) {
       return new SizeRequest(true);
     }
-    Matcher matcher = PARSE_PAT.matcher(str);
-    if (!matcher.matches()) {
-      throw new ResolvingException("Bad format: " + str);
-    }
-    if (matcher.group(1) != null) {
-      if (matcher.group(1).equals("!")) {
-        return new SizeRequest(
-            Integer.valueOf(matcher.group(2)), Integer.valueOf(matcher.group(3)), true);
-      } else if (matcher.group(1).equals("pct:")) {
-        return new SizeRequest(new BigDecimal(matcher.group(4)));
+    boolean bestFit = str.startsWith("!");
+    boolean relative = !bestFit && str.startsWith("pct:");
+    int start = bestFit ? 1 : relative ? 4 : 0;
+    int comma = str.indexOf(',', start);
+    if (comma < 0) {
+      if (relative) {
+        BigDecimal percentage = NumberParser.parseDecimal(str, start, str.length());
+        if (percentage == null) {
+          throw new ResolvingException("Bad format: " + str);
+        }
+        return new SizeRequest(percentage);
       }
+      if (bestFit || !NumberParser.isNumeric(str, start, str.length())) {
+        throw new ResolvingException("Bad format: " + str);
+      }
+      // A plain number is missing its comma
+      return new SizeRequest(null, null);
     }
-    Integer width = null;
-    Integer height = null;
-    if (matcher.group(2) != null) {
-      width = Integer.parseInt(matcher.group(2));
+    if (relative) {
+      throw new ResolvingException("Bad format: " + str);
     }
-    if (matcher.group(3) != null) {
-      height = Integer.parseInt(matcher.group(3));
+    int width = NumberParser.parseInt(str, start, comma);
+    int height = NumberParser.parseInt(str, comma + 1, str.length());
+    // Either dimension can be left out, but what is there has to be a valid number
+    if ((width < 0 && comma > start) || (height < 0 && comma + 1 < str.length())) {
+      throw new ResolvingException("Bad format: " + str);
     }
-    return new SizeRequest(width, height);
+    if (bestFit) {
+      if (width < 0 || height < 0) {
+        throw new ResolvingException("Bad format: " + str);
+      }
+      return new SizeRequest(width, height, true);
+    }
+    return new SizeRequest(width < 0 ? null : width, height < 0 ? null : height);
   }
 
   /** Create a size request for the full native resolution of the image region. */
@@ -188,9 +196,9 @@ public class SizeRequest {
       return this.toString();
     } else if (Math.floor(resolvedRatio * nativeSize.getHeight()) == nativeSize.getWidth()
         || Math.ceil(resolvedRatio * nativeSize.getHeight()) == nativeSize.getWidth()) {
-      return String.format("%d,", resolved.width);
+      return resolved.width + ",";
     } else {
-      return String.format("%d,%d", resolved.width, resolved.height);
+      return resolved.width + "," + resolved.height;
     }
   }
 
@@ -213,67 +221,187 @@ public class SizeRequest {
   public Dimension resolve(
       Dimension nativeSize, List<Dimension> availableSizes, ImageApiProfile profile)
       throws ResolvingException {
-    double aspect = (double) nativeSize.width / (double) nativeSize.height;
+    return resolve(
+        nativeSize.width, nativeSize.height, availableSizes, profile, null, new Dimension());
+  }
+
+  /**
+   * Like {@link #resolve(Dimension, List, ImageApiProfile)}, but writes the dimensions into a
+   * {@link Dimension} provided by the caller, e.g. one that is reused for every request handled by
+   * a thread. Neither the request nor the available sizes are modified.
+   *
+   * @param nativeSize native size of the image region
+   * @param availableSizes available sizes
+   * @param profile image api profile
+   * @param out dimension the result is written to, may be {@code nativeSize}. Its contents are
+   *     undefined if the request can not be resolved
+   * @return {@code out}
+   * @throws de.digitalcollections.iiif.model.image.ResolvingException if params can not be resolved
+   *     to Dimension
+   */
+  public Dimension resolve(
+      Dimension nativeSize, List<Dimension> availableSizes, ImageApiProfile profile, Dimension out)
+      throws ResolvingException {
+    return resolve(nativeSize.width, nativeSize.height, availableSizes, profile, null, out);
+  }
+
+  /**
+   * Like {@link #resolve(Dimension, List, ImageApiProfile, Dimension)}, but checks the supported
+   * features against a snapshot of the profile's capabilities instead of the profile's feature set.
+   *
+   * @param nativeSize native size of the image region
+   * @param availableSizes available sizes
+   * @param profile image api profile
+   * @param capabilities capabilities of the profile, see {@link ImageApiProfile#getCapabilities()}
+   * @param out dimension the result is written to, may be {@code nativeSize}. Its contents are
+   *     undefined if the request can not be resolved
+   * @return {@code out}
+   * @throws de.digitalcollections.iiif.model.image.ResolvingException if params can not be resolved
+   *     to Dimension
+   */
+  public Dimension resolve(
+      Dimension nativeSize,
+      List<Dimension> availableSizes,
+      ImageApiProfile profile,
+      ImageApiProfile.Capabilities capabilities,
+      Dimension out)
+      throws ResolvingException {
+    return resolve(nativeSize.width, nativeSize.height, availableSizes, profile, capabilities, out);
+  }
+
+  /**
+   * Like {@link #resolve(Dimension, ImageApiProfile)}, but can be used with a {@link Rectangle},
+   * e.g. as returned from {@link RegionRequest#resolve(Dimension)}.
+   *
+   * @param region image region
+   * @param profile image api profile
+   * @return resolved size dimension
+   * @throws de.digitalcollections.iiif.model.image.ResolvingException if rectangle region can not
+   *     be resolved
+   */
+  public Dimension resolve(Rectangle region, ImageApiProfile profile) throws ResolvingException {
+    return resolve(region, profile, new Dimension());
+  }
+
+  /**
+   * Like {@link #resolve(Rectangle, ImageApiProfile)}, but writes the dimensions into a {@link
+   * Dimension} provided by the caller.
+   *
+   * @param region image region, e.g. as written by {@link RegionRequest#resolve(Dimension,
+   *     Rectangle)}
+   * @param profile image api profile
+   * @param out dimension the result is written to, its contents are undefined if the request can
+   *     not be resolved
+   * @return {@code out}
+   * @throws de.digitalcollections.iiif.model.image.ResolvingException if rectangle region can not
+   *     be resolved
+   */
+  public Dimension resolve(Rectangle region, ImageApiProfile profile, Dimension out)
+      throws ResolvingException {
+    return resolve(region.width, region.height, Collections.emptyList(), profile, null, out);
+  }
+
+  /**
+   * Like {@link #resolve(Rectangle, ImageApiProfile, Dimension)}, but checks the supported features
+   * against a snapshot of the profile's capabilities instead of the profile's feature set.
+   *
+   * @param region image region, e.g. as written by {@link RegionRequest#resolve(Dimension,
+   *     Rectangle)}
+   * @param profile image api profile
+   * @param capabilities capabilities of the profile, see {@link ImageApiProfile#getCapabilities()}
+   * @param out dimension the result is written to, its contents are undefined if the request can
+   *     not be resolved
+   * @return {@code out}
+   * @throws de.digitalcollections.iiif.model.image.ResolvingException if rectangle region can not
+   *     be resolved
+   */
+  public Dimension resolve(
+      Rectangle region,
+      ImageApiProfile profile,
+      ImageApiProfile.Capabilities capabilities,
+      Dimension out)
+      throws ResolvingException {
+    return resolve(
+        region.width, region.height, Collections.emptyList(), profile, capabilities, out);
+  }
+
+  private Dimension resolve(
+      int nativeWidth,
+      int nativeHeight,
+      List<Dimension> availableSizes,
+      ImageApiProfile profile,
+      ImageApiProfile.Capabilities capabilities,
+      Dimension out)
+      throws ResolvingException {
+    double aspect = (double) nativeWidth / (double) nativeHeight;
     // "max"
     if (max) {
       // By default, identical to the largest available size or the native size if no sizes were
       // specified
-      Dimension dim =
-          availableSizes.stream()
-              // Avoid upscaling when dealing with region requests
-              .filter(s -> s.width <= nativeSize.width && s.height <= nativeSize.height)
-              // Select the largest available size
-              .max(Comparator.comparing(Dimension::getWidth).thenComparing(Dimension::getHeight))
-              // Otherwise, fall back to the native size
-              .orElse(new Dimension(nativeSize.width, nativeSize.height));
+      int maxWidth = nativeWidth;
+      int maxHeight = nativeHeight;
+      boolean found = false;
+      for (int i = 0; i < availableSizes.size(); i++) {
+        Dimension size = availableSizes.get(i);
+        // Avoid upscaling when dealing with region requests
+        if (size.width > nativeWidth || size.height > nativeHeight) {
+          continue;
+        }
+        // Select the largest available size
+        if (!found
+            || size.width > maxWidth
+            || (size.width == maxWidth && size.height > maxHeight)) {
+          maxWidth = size.width;
+          maxHeight = size.height;
+          found = true;
+        }
+      }
+      out.width = maxWidth;
+      out.height = maxHeight;
       if (profile != null && profile.maxWidth != null) {
-        if (dim.width > profile.maxWidth) {
+        if (out.width > profile.maxWidth) {
           // If maximum width is set, width cannot exceed it
-          dim.width = profile.maxWidth;
-          dim.height = (int) (profile.maxWidth / aspect);
+          out.width = profile.maxWidth;
+          out.height = (int) (profile.maxWidth / aspect);
         }
-        int maxHeight = profile.maxHeight != null ? profile.maxHeight : profile.maxWidth;
-        if (dim.height > maxHeight) {
+        int profileMaxHeight = profile.maxHeight != null ? profile.maxHeight : profile.maxWidth;
+        if (out.height > profileMaxHeight) {
           // Adjust height if it exceeds maximum height
-          dim.height = maxHeight;
-          dim.width = (int) (aspect * dim.height);
+          out.height = profileMaxHeight;
+          out.width = (int) (aspect * out.height);
         }
       }
       if (profile != null && profile.maxArea != null) {
         // Fit width and height into the maximum available area, preserving the aspect ratio
-        long currentArea = (long) dim.width * (long) dim.height;
+        long currentArea = (long) out.width * (long) out.height;
         if (currentArea > profile.maxArea) {
-          dim.width = (int) Math.sqrt(aspect * (double) profile.maxArea);
-          dim.height = (int) (dim.width / aspect);
-          if (dim.width <= 0 || dim.height <= 0) {
+          out.width = (int) Math.sqrt(aspect * (double) profile.maxArea);
+          out.height = (int) (out.width / aspect);
+          if (out.width <= 0 || out.height <= 0) {
             throw new ResolvingException(
                 String.format(
                     "Cannot fit image with dimensions %dx%d into maximum area of %d pixels.",
-                    nativeSize.width, nativeSize.height, profile.maxArea));
+                    nativeWidth, nativeHeight, profile.maxArea));
           }
         }
       }
-      return dim;
+      return out;
     }
-    Dimension out;
     if (percentage != null || bestFit) { // "pct:"
       double ratio;
       if (percentage != null) {
         ratio = percentage.doubleValue() / 100.0;
       } else {
-        ratio = Math.min(width / nativeSize.getWidth(), height / nativeSize.getHeight());
+        ratio = Math.min(width / (double) nativeWidth, height / (double) nativeHeight);
       }
-      out = new Dimension((int) (ratio * nativeSize.width), (int) (ratio * nativeSize.height));
+      out.width = (int) (ratio * nativeWidth);
+      out.height = (int) (ratio * nativeHeight);
     } else if (width == null && height == null) { // "full"
-      out = nativeSize;
+      out.width = nativeWidth;
+      out.height = nativeHeight;
     } else {
-      out = new Dimension();
-      if (width != null) {
-        out.width = width;
-      }
-      if (height != null) {
-        out.height = height;
-      }
+      out.width = width != null ? width : 0;
+      out.height = height != null ? height : 0;
       if (width == null) { // ",h"
         out.width = (int) (out.height * aspect);
       }
@@ -282,6 +410,8 @@ public class SizeRequest {
       }
     }
     Integer maxHeight = profile.maxHeight != null ? profile.maxHeight : profile.maxWidth;
+    // Widen the area to long, it overflows int for images above ~46000x46000 pixels
+    long area = (long) out.width * out.height;
     if (profile.maxWidth != null && out.width > profile.maxWidth) {
       throw new ResolvingException(
           String.format(
@@ -292,34 +422,27 @@ public class SizeRequest {
           String.format(
               "Requested height (%d) exceeds maximum height (%d) as specified in the profile.",
               out.height, maxHeight));
-    } else if (profile.maxArea != null && out.height * out.width > profile.maxArea) {
+    } else if (profile.maxArea != null && area > profile.maxArea) {
       throw new ResolvingException(
           String.format(
               "Requested area (%d*%d = %d) exceeds maximum area (%d) as specified in the profile",
-              out.width, out.height, out.width * out.height, profile.maxArea));
-    } else if ((profile.features == null
-            || !profile.features.contains(ImageApiProfile.Feature.SIZE_ABOVE_FULL))
-        && (out.width > nativeSize.width || out.height > nativeSize.height)) {
+              out.width, out.height, area, profile.maxArea));
+    } else if ((out.width > nativeWidth || out.height > nativeHeight)
+        && !supportsSizeAboveFull(profile, capabilities)) {
       throw new ResolvingException(
           String.format(
               "Requested dimensions (%dx%d) exceed native dimensions (%dx%d), profile states that upscaling is not supported.",
-              out.width, out.height, nativeSize.width, nativeSize.height));
+              out.width, out.height, nativeWidth, nativeHeight));
     }
     return out;
   }
 
-  /**
-   * Like {@link #resolve(Dimension, ImageApiProfile)}, but can be used with a {@link Rectangle},
-   * e.g. as returned from {@link RegionRequest#resolve(Dimension)}.
-   *
-   * @param region image region
-   * @param profile image api profile
-   * @return resolved size dimension
-   * @throws de.digitalcollections.iiif.model.image.ResolvingException if rectangle region can not
-   *     be resolved
-   */
-  public Dimension resolve(Rectangle region, ImageApiProfile profile) throws ResolvingException {
-    return resolve(new Dimension(region.width, region.height), profile);
+  private static boolean supportsSizeAboveFull(
+      ImageApiProfile profile, ImageApiProfile.Capabilities capabilities) {
+    if (capabilities != null) {
+      return capabilities.supports(ImageApiProfile.Feature.SIZE_ABOVE_FULL);
+    }
+    return profile.supports(ImageApiProfile.Feature.SIZE_ABOVE_FULL);
   }
 
   /**
@@ -4,17 +4,23 @@ import com.fasterxml.jackson.databind.BeanDescription;
 import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
 import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.CreatorProperty;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
 import de.digitalcollections.iiif.model.Profile;
 import de.digitalcollections.iiif.model.Service;
 import de.digitalcollections.iiif.model.image.ImageApiProfile.Format;
 import de.digitalcollections.iiif.model.image.ImageApiProfile.Quality;
 import de.digitalcollections.iiif.model.jackson.serialization.EnumDeserializer;
+import de.digitalcollections.iiif.model.jackson.serialization.LazyPropertyDeserializer;
 import de.digitalcollections.iiif.model.jackson.serialization.ProfileDeserializer;
 import de.digitalcollections.iiif.model.jackson.serialization.ResourceDeserializer;
 import de.digitalcollections.iiif.model.jackson.serialization.ServiceDeserializer;
 import de.digitalcollections.iiif.model.sharedcanvas.Resource;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class DeserializerModifier extends BeanDeserializerModifier {
 
@@ -30,6 +36,29 @@ public class DeserializerModifier extends BeanDeserializerModifier {
     return super.modifyEnumDeserializer(config, type, beanDesc, deserializer);
   }
 
+  @Override
+  public BeanDeserializerBuilder updateBuilder(
+      DeserializationConfig config, BeanDescription beanDesc, BeanDeserializerBuilder builder) {
+    if (!Resource.class.isAssignableFrom(beanDesc.getBeanClass())) {
+      return builder;
+    }
+    // Rarely accessed properties can be captured and bound on first access, see lazyReader()
+    List<SettableBeanProperty> lazyProperties = new ArrayList<>();
+    builder
+        .getProperties()
+        .forEachRemaining(
+            prop -> {
+              if (LazyPropertyDeserializer.PROPERTY_NAMES.contains(prop.getName())
+                  && !(prop instanceof CreatorProperty)) {
+                lazyProperties.add(prop);
+              }
+            });
+    for (SettableBeanProperty prop : lazyProperties) {
+      builder.addOrReplaceProperty(new LazyPropertyDeserializer(prop), true);
+    }
+    return builder;
+  }
+
   @Override
   public JsonDeserializer<?> modifyDeserializer(
       DeserializationConfig config, BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
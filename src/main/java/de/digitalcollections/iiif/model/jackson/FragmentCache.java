@@ -0,0 +1,352 @@
+package de.digitalcollections.iiif.model.jackson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+import de.digitalcollections.iiif.model.sharedcanvas.Resource;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Cache for the serialized JSON of sub-resources that are written over and over again, e.g. image
+ * services, licenses or attributions that are shared by all canvases of a manifest.
+ *
+ * <p>Only objects that were registered with {@link #register(Object)} are cached, by identity. They
+ * must not be modified afterwards, or they have to be registered again. The cache doesn't keep them
+ * reachable, their fragments are dropped once they are garbage collected. Since the output of a
+ * value depends on the field it is written in, a value can have a fragment for every field it is
+ * used in. Fragments are only used for compact JSON output, pretty-printed or binary output is
+ * always serialized from scratch.
+ *
+ * <pre>
+ * ImageService service = new ImageService("https://example.com/iiif/image");
+ * mapper.getFragmentCache().register(service);
+ * </pre>
+ */
+public class FragmentCache {
+
+  /** Serialization attribute with the fragment cache of a mapper. */
+  public static final Object ATTRIBUTE = new Object();
+
+  /** Default maximum size of all cached fragments, in characters. */
+  public static final long DEFAULT_MAXIMUM_SIZE = 1L << 20;
+
+  private static final JsonFactory FRAGMENT_FACTORY = new JsonFactory();
+
+  /**
+   * Whether objects were ever registered with any cache, serializers skip all lookups otherwise.
+   *
+   * <p>This is a one-way flag that is never cleared, not even if all objects are unregistered
+   * again. Tracking the registrations of all caches isn't worth it for a fast path, once the flag
+   * is set {@link #writeCached} looks at the registrations of the cache in use.
+   */
+  private static volatile boolean inUse = false;
+
+  /** Writes a value without the cache, i.e. the serialization logic of a serializer. */
+  @FunctionalInterface
+  public interface ValueWriter<T> {
+    void write(T value, JsonGenerator gen, SerializerProvider serializers) throws IOException;
+  }
+
+  /** Weak keys are compared by identity. */
+  private final Set<Object> registered =
+      Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+
+  private final long maximumSize;
+
+  /** Fragments of the registered objects by their context, weak keys are compared by identity. */
+  private final Cache<Object, ImmutableMap<FragmentKey, String>> fragments;
+
+  public FragmentCache() {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * Create a cache.
+   *
+   * @param maximumSize maximum size of all cached fragments in characters, the least recently used
+   *     fragments are evicted if it is exceeded
+   */
+  public FragmentCache(long maximumSize) {
+    this.maximumSize = maximumSize;
+    this.fragments =
+        CacheBuilder.newBuilder()
+            .weakKeys()
+            .maximumWeight(maximumSize)
+            .<Object, ImmutableMap<FragmentKey, String>>weigher(
+                (value, byContext) -> {
+                  int weight = 0;
+                  for (String fragment : byContext.values()) {
+                    weight += fragment.length();
+                  }
+                  return weight;
+                })
+            .build();
+  }
+
+  /**
+   * Register an object, so that its serialization is cached.
+   *
+   * @param value an object that is not modified anymore, e.g. a service, a property value or a list
+   *     of licenses
+   * @return this cache
+   */
+  public FragmentCache register(Object value) {
+    invalidate(value);
+    registered.add(value);
+    inUse = true;
+    return this;
+  }
+
+  /**
+   * Stop caching the serialization of an object.
+   *
+   * @param value a registered object
+   * @return this cache
+   */
+  public FragmentCache unregister(Object value) {
+    registered.remove(value);
+    invalidate(value);
+    return this;
+  }
+
+  /**
+   * Create an empty cache with the same maximum size and registered objects, e.g. for a copy of a
+   * mapper. The fragments of a mapper depend on its configuration, so they are not shared.
+   */
+  FragmentCache copy() {
+    FragmentCache copy = new FragmentCache(maximumSize);
+    copy.registered.addAll(registered);
+    return copy;
+  }
+
+  /**
+   * Check if objects were ever registered with a cache. If not, serializers don't need to call
+   * {@link #writeCached(Object, JsonGenerator, SerializerProvider, ValueWriter)}.
+   *
+   * @return true if objects were registered with any cache, even if they were unregistered since
+   */
+  public static boolean isInUse() {
+    return inUse;
+  }
+
+  /** Remove all cached fragments, the objects stay registered. */
+  public void invalidateAll() {
+    fragments.invalidateAll();
+  }
+
+  private void invalidate(Object value) {
+    fragments.invalidate(value);
+  }
+
+  private String getFragment(Object value, FragmentKey key) {
+    ImmutableMap<FragmentKey, String> byContext = fragments.getIfPresent(value);
+    return byContext != null ? byContext.get(key) : null;
+  }
+
+  private void putFragment(Object value, FragmentKey key, String fragment) {
+    // A value is only written in a few contexts, replacing its map also updates its weight
+    fragments
+        .asMap()
+        .merge(
+            value,
+            ImmutableMap.of(key, fragment),
+            (cached, added) ->
+                ImmutableMap.<FragmentKey, String>builder()
+                    .putAll(cached)
+                    .putAll(added)
+                    .buildKeepingLast());
+  }
+
+  /**
+   * Write a value from the cache of the current serialization, if it is cacheable.
+   *
+   * @param <T> type of the value
+   * @param value the value to write
+   * @param gen the generator to write to
+   * @param serializers the current serializer provider
+   * @param writer writes the value if it isn't cached yet
+   * @return true if the value was written, false if it has to be written by the caller
+   * @throws IOException if the value could not be written
+   */
+  public static <T> boolean writeCached(
+      T value, JsonGenerator gen, SerializerProvider serializers, ValueWriter<T> writer)
+      throws IOException {
+    if (!inUse) {
+      return false;
+    }
+    FragmentCache cache = (FragmentCache) serializers.getAttribute(ATTRIBUTE);
+    if (cache == null
+        || cache.registered.isEmpty()
+        || !cache.registered.contains(value)
+        || !(gen instanceof JsonGeneratorImpl)
+        || gen.getPrettyPrinter() != null) {
+      return false;
+    }
+    FragmentKey key = FragmentKey.create(gen, serializers);
+    if (key == null) {
+      return false;
+    }
+    String fragment = cache.getFragment(value, key);
+    if (fragment == null) {
+      fragment = render(value, gen, serializers, writer);
+      cache.putFragment(value, key, fragment);
+    }
+    gen.writeRawValue(fragment);
+    return true;
+  }
+
+  /** Serialize a value at the root of a new generator, as if it was written in its context. */
+  private static <T> String render(
+      T value, JsonGenerator gen, SerializerProvider serializers, ValueWriter<T> writer)
+      throws IOException {
+    StringWriter out = new StringWriter();
+    try (JsonGenerator fragmentGen = FRAGMENT_FACTORY.createGenerator(out)) {
+      fragmentGen.setCodec(gen.getCodec());
+      fragmentGen.overrideStdFeatures(gen.getFeatureMask(), -1);
+      fragmentGen.setCharacterEscapes(gen.getCharacterEscapes());
+      fragmentGen.setHighestNonEscapedChar(gen.getHighestEscapedChar());
+      // Serializers look at the parent object and the field a value is written in
+      fragmentGen.assignCurrentValue(gen.currentValue());
+      writer.write(value, new EmbeddedGenerator(fragmentGen, gen.getOutputContext()), serializers);
+    }
+    return out.toString();
+  }
+
+  /** Reports the context a fragment is written in as the root context of its generator. */
+  private static final class EmbeddedGenerator extends JsonGeneratorDelegate {
+
+    private final JsonStreamContext embeddingContext;
+
+    EmbeddedGenerator(JsonGenerator fragmentGen, JsonStreamContext embeddingContext) {
+      super(fragmentGen, false);
+      this.embeddingContext = embeddingContext;
+    }
+
+    @Override
+    public JsonStreamContext getOutputContext() {
+      return new EmbeddedContext(delegate.getOutputContext(), embeddingContext);
+    }
+  }
+
+  /**
+   * A context of a fragment generator. The root context takes its position from the context the
+   * fragment is written in, current values are always those of the fragment generator.
+   */
+  private static final class EmbeddedContext extends JsonStreamContext {
+
+    private final JsonStreamContext context;
+    private final JsonStreamContext embeddingContext;
+
+    EmbeddedContext(JsonStreamContext context, JsonStreamContext embeddingContext) {
+      super(context.inRoot() ? embeddingContext : context);
+      this.context = context;
+      this.embeddingContext = embeddingContext;
+    }
+
+    @Override
+    public JsonStreamContext getParent() {
+      if (context.inRoot()) {
+        return embeddingContext.getParent();
+      }
+      return new EmbeddedContext(context.getParent(), embeddingContext);
+    }
+
+    @Override
+    public String getCurrentName() {
+      return context.inRoot() ? embeddingContext.getCurrentName() : context.getCurrentName();
+    }
+
+    @Override
+    public Object getCurrentValue() {
+      return context.getCurrentValue();
+    }
+
+    @Override
+    public void setCurrentValue(Object value) {
+      context.setCurrentValue(value);
+    }
+  }
+
+  /** Everything about the context of a value that affects its serialization. */
+  private static final class FragmentKey {
+
+    private final String field;
+    private final boolean inArray;
+    private final String parentType;
+    private final int serializationFeatures;
+    private final int generatorFeatures;
+    private final Class<?> view;
+
+    private FragmentKey(
+        String field,
+        boolean inArray,
+        String parentType,
+        int serializationFeatures,
+        int generatorFeatures,
+        Class<?> view) {
+      this.field = field;
+      this.inArray = inArray;
+      this.parentType = parentType;
+      this.serializationFeatures = serializationFeatures;
+      this.generatorFeatures = generatorFeatures;
+      this.view = view;
+    }
+
+    /** Create the key for the current context, or return null if values can't be cached in it. */
+    static FragmentKey create(JsonGenerator gen, SerializerProvider serializers) {
+      JsonStreamContext ctx = gen.getOutputContext();
+      JsonStreamContext objectCtx = ctx.inArray() ? ctx.getParent() : ctx;
+      if (objectCtx == null || !objectCtx.inObject()) {
+        // Top-level values and values in nested arrays
+        return null;
+      }
+      String field = objectCtx.getCurrentName();
+      // Annotation targets also depend on the motivation of the annotation, see ResourceSerializer
+      if (field == null || "on".equals(field)) {
+        return null;
+      }
+      Object parent = ctx.getCurrentValue();
+      if (parent == null) {
+        parent = objectCtx.getCurrentValue();
+      }
+      String parentType = parent instanceof Resource ? ((Resource<?>) parent).getType() : null;
+      return new FragmentKey(
+          field,
+          ctx.inArray(),
+          parentType,
+          serializers.getConfig().getSerializationFeatures(),
+          gen.getFeatureMask(),
+          serializers.getActiveView());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof FragmentKey)) {
+        return false;
+      }
+      FragmentKey other = (FragmentKey) obj;
+      return inArray == other.inArray
+          && serializationFeatures == other.serializationFeatures
+          && generatorFeatures == other.generatorFeatures
+          && view == other.view
+          && field.equals(other.field)
+          && Objects.equals(parentType, other.parentType);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(field, inArray, parentType);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package de.digitalcollections.iiif.model.jackson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Mapper for the binary CBOR format (RFC 8949), with the same configuration as {@link
+ * IiifObjectMapper}.
+ *
+ * <p>CBOR encodes the same data model as JSON, but is faster to parse and is supported by many
+ * languages. Needs the optional {@code jackson-dataformat-cbor} dependency.
+ */
+public class IiifCborMapper extends IiifObjectMapper {
+
+  public IiifCborMapper() {
+    this(false);
+  }
+
+  /**
+   * Create a CBOR mapper, optionally with generated property accessors.
+   *
+   * @param generatedAccessors whether to use generated property accessors, see {@link
+   *     IiifObjectMapper#IiifObjectMapper(boolean)}
+   */
+  public IiifCborMapper(boolean generatedAccessors) {
+    super(new CBORFactory(), generatedAccessors);
+  }
+
+  protected IiifCborMapper(IiifCborMapper objectMapper) {
+    super(objectMapper);
+  }
+
+  @Override
+  public ObjectMapper copy() {
+    return new IiifCborMapper(this);
+  }
+}
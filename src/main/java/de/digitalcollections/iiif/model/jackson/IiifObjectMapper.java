@@ -1,14 +1,54 @@
 package de.digitalcollections.iiif.model.jackson;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.ContextAttributes;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import de.digitalcollections.iiif.model.image.ImageService;
+import de.digitalcollections.iiif.model.jackson.serialization.LazyPropertyDeserializer;
+import de.digitalcollections.iiif.model.search.SearchResult;
+import de.digitalcollections.iiif.model.search.TermList;
+import de.digitalcollections.iiif.model.sharedcanvas.AnnotationList;
+import de.digitalcollections.iiif.model.sharedcanvas.Canvas;
+import de.digitalcollections.iiif.model.sharedcanvas.Collection;
+import de.digitalcollections.iiif.model.sharedcanvas.Manifest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 public class IiifObjectMapper extends ObjectMapper {
 
+  /** Module that generates property accessors, needs to be on the classpath to be used. */
+  private static final String ACCESSOR_MODULE =
+      "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+
+  /** Types that prebuilt readers and writers are kept for, see {@link #typedReader(Class)}. */
+  private static final ImmutableSet<Class<?>> PREBUILT_TYPES =
+      ImmutableSet.of(
+          Manifest.class,
+          Collection.class,
+          Canvas.class,
+          AnnotationList.class,
+          ImageService.class,
+          SearchResult.class,
+          TermList.class);
+
+  private final FragmentCache fragmentCache;
+
+  private volatile ImmutableMap<Class<?>, ObjectReader> typedReaders;
+
+  private volatile ImmutableMap<Class<?>, ObjectWriter> typedWriters;
+
   private void checkJacksonVersion() {
     int neededMajor = 2;
     int neededMinor = 9;
@@ -23,7 +63,33 @@ public class IiifObjectMapper extends ObjectMapper {
   }
 
   public IiifObjectMapper() {
-    super();
+    this(false);
+  }
+
+  /**
+   * Create a mapper, optionally with generated property accessors.
+   *
+   * <p>Generated accessors replace the reflection-based access to the properties of the model
+   * classes, which speeds up (de)serialization. They need the optional {@code
+   * jackson-module-blackbird} dependency.
+   *
+   * @param generatedAccessors whether to use generated property accessors
+   * @throws IllegalStateException if generated accessors are requested, but the module is missing
+   */
+  public IiifObjectMapper(boolean generatedAccessors) {
+    this(null, generatedAccessors);
+  }
+
+  /**
+   * Create a mapper for another data format, e.g. a binary one.
+   *
+   * @param factory factory for the parsers and generators of the format, null for JSON
+   * @param generatedAccessors whether to use generated property accessors
+   * @see IiifSmileMapper
+   * @see IiifCborMapper
+   */
+  protected IiifObjectMapper(JsonFactory factory, boolean generatedAccessors) {
+    super(factory);
 
     this.checkJacksonVersion();
 
@@ -49,10 +115,144 @@ public class IiifObjectMapper extends ObjectMapper {
 
     // Register the module
     this.registerModule(new IiifModule());
+
+    // Make the fragment cache available to the serializers
+    this.fragmentCache = new FragmentCache();
+    this.setDefaultAttributes(
+        ContextAttributes.getEmpty().withSharedAttribute(FragmentCache.ATTRIBUTE, fragmentCache));
+
+    // Modifiers of modules registered later are applied first, so our modifiers can still wrap the
+    // properties with generated accessors
+    if (generatedAccessors) {
+      this.registerModule(createAccessorModule());
+    }
+  }
+
+  private static Module createAccessorModule() {
+    try {
+      return (Module) Class.forName(ACCESSOR_MODULE).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      throw new IllegalStateException(
+          "Generated accessors need jackson-module-blackbird on the classpath", e);
+    }
+  }
+
+  /**
+   * Start writing a manifest incrementally, see {@link StreamingManifestWriter}.
+   *
+   * @param skeleton the manifest without (all of) its canvases
+   * @param out the stream to write to
+   * @return the writer to write the canvases with
+   * @throws IOException if the manifest could not be written
+   */
+  public StreamingManifestWriter openManifestWriter(Manifest skeleton, OutputStream out)
+      throws IOException {
+    return openManifestWriter(skeleton, out, StreamingManifestWriter.FlushPolicy.NONE);
+  }
+
+  /**
+   * Start writing a manifest incrementally, see {@link StreamingManifestWriter}.
+   *
+   * @param skeleton the manifest without (all of) its canvases
+   * @param out the stream to write to
+   * @param flushPolicy decides when to flush the output
+   * @return the writer to write the canvases with
+   * @throws IOException if the manifest could not be written
+   */
+  public StreamingManifestWriter openManifestWriter(
+      Manifest skeleton, OutputStream out, StreamingManifestWriter.FlushPolicy flushPolicy)
+      throws IOException {
+    return new StreamingManifestWriter(this.writer(), skeleton, out, flushPolicy);
+  }
+
+  /**
+   * Start reading a manifest incrementally, see {@link StreamingManifestReader}.
+   *
+   * @param in the stream to read from
+   * @return the reader to read the canvases with
+   * @throws IOException if the manifest could not be read
+   */
+  public StreamingManifestReader openManifestReader(InputStream in) throws IOException {
+    return new StreamingManifestReader(this.reader(), this.getFactory().createParser(in));
+  }
+
+  /**
+   * Create a reader that binds rarely accessed properties (`metadata`, `seeAlso`, `structures` and
+   * `otherContent`) only when their getters are first called.
+   *
+   * <p>Until then, their values are kept as parsed tokens and are written back verbatim when the
+   * resource is serialized. Resources read this way bind their lazy properties under a lock, so
+   * they can still be shared between threads.
+   *
+   * @return the reader, needs to be given the type to read, e.g. with {@code forType}
+   * @see LazyValue
+   */
+  public ObjectReader lazyReader() {
+    return this.reader().withAttribute(LazyPropertyDeserializer.LAZY_PROPERTIES, Boolean.TRUE);
+  }
+
+  /**
+   * Get a prebuilt reader for one of the main IIIF types.
+   *
+   * <p>Readers for {@link Manifest}, {@link Collection}, {@link Canvas}, {@link AnnotationList},
+   * {@link ImageService}, {@link SearchResult} and {@link TermList} are built (together with their
+   * root deserializers) when the first one is requested and reused afterwards, so the mapper has to
+   * be fully configured by then. For other types a new reader is created.
+   *
+   * @param type the type to read
+   * @return an immutable reader for the type
+   */
+  public ObjectReader typedReader(Class<?> type) {
+    ImmutableMap<Class<?>, ObjectReader> readers = typedReaders;
+    if (readers == null) {
+      // Racing threads build equivalent readers, so there is no need to lock
+      readers = Maps.toMap(PREBUILT_TYPES, this::readerFor);
+      typedReaders = readers;
+    }
+    ObjectReader reader = readers.get(type);
+    return reader != null ? reader : this.readerFor(type);
+  }
+
+  /**
+   * Get a prebuilt writer for one of the main IIIF types, see {@link #typedReader(Class)}.
+   *
+   * <p>The writer serializes values as the given type, i.e. it must not be used for subclasses with
+   * additional properties.
+   *
+   * @param type the type to write
+   * @return an immutable writer for the type
+   */
+  public ObjectWriter typedWriter(Class<?> type) {
+    ImmutableMap<Class<?>, ObjectWriter> writers = typedWriters;
+    if (writers == null) {
+      writers = Maps.toMap(PREBUILT_TYPES, this::writerFor);
+      typedWriters = writers;
+    }
+    ObjectWriter writer = writers.get(type);
+    return writer != null ? writer : this.writerFor(type);
+  }
+
+  /**
+   * Get the cache for the serialized JSON of sub-resources that are shared by many resources.
+   *
+   * <p>Objects have to be registered with the cache to be cached, see {@link FragmentCache}. Copies
+   * of this mapper can be configured differently, so they get their own cache with the same objects
+   * registered.
+   *
+   * @return the fragment cache of this mapper
+   */
+  public FragmentCache getFragmentCache() {
+    return fragmentCache;
   }
 
-  private IiifObjectMapper(IiifObjectMapper objectMapper) {
+  protected IiifObjectMapper(IiifObjectMapper objectMapper) {
     super(objectMapper);
+    // The copied configuration still refers to the cache of the original mapper
+    this.fragmentCache = objectMapper.fragmentCache.copy();
+    this.setDefaultAttributes(
+        this.getSerializationConfig()
+            .getAttributes()
+            .withSharedAttribute(FragmentCache.ATTRIBUTE, fragmentCache));
   }
 
   @Override
@@ -0,0 +1,37 @@
+package de.digitalcollections.iiif.model.jackson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Mapper for the binary Smile format, with the same configuration as {@link IiifObjectMapper}.
+ *
+ * <p>Smile encodes the same data model as JSON, but is faster to parse and deduplicates repeated
+ * property names and short values, which makes it a good fit for passing IIIF resources between
+ * services. Needs the optional {@code jackson-dataformat-smile} dependency.
+ */
+public class IiifSmileMapper extends IiifObjectMapper {
+
+  public IiifSmileMapper() {
+    this(false);
+  }
+
+  /**
+   * Create a Smile mapper, optionally with generated property accessors.
+   *
+   * @param generatedAccessors whether to use generated property accessors, see {@link
+   *     IiifObjectMapper#IiifObjectMapper(boolean)}
+   */
+  public IiifSmileMapper(boolean generatedAccessors) {
+    super(new SmileFactory(), generatedAccessors);
+  }
+
+  protected IiifSmileMapper(IiifSmileMapper objectMapper) {
+    super(objectMapper);
+  }
+
+  @Override
+  public ObjectMapper copy() {
+    return new IiifSmileMapper(this);
+  }
+}
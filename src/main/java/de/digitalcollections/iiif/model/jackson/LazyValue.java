@@ -0,0 +1,58 @@
+package de.digitalcollections.iiif.model.jackson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A property value that was captured during parsing, but is only bound when it is first accessed.
+ *
+ * <p>Used for rarely accessed, but potentially large properties when reading with {@link
+ * IiifObjectMapper#lazyReader()}. Until it is bound, the value is written back verbatim when its
+ * resource is serialized.
+ */
+public final class LazyValue {
+
+  private final TokenBuffer tokens;
+  private final ObjectReader reader;
+
+  /**
+   * Create a lazy value.
+   *
+   * @param tokens the captured JSON value
+   * @param reader reader for the type of the value
+   */
+  public LazyValue(TokenBuffer tokens, ObjectReader reader) {
+    this.tokens = tokens;
+    this.reader = reader;
+  }
+
+  /**
+   * Bind the captured value.
+   *
+   * <p>{@link UncheckedIOException} is thrown if it could not be bound, since this usually happens
+   * in a getter.
+   *
+   * @return the bound value
+   */
+  public Object bind() {
+    try (JsonParser p = tokens.asParser()) {
+      return reader.readValue(p);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Write the captured value as it was read.
+   *
+   * @param gen the generator to write to
+   * @throws IOException if the value could not be written
+   */
+  public void writeTo(JsonGenerator gen) throws IOException {
+    tokens.serialize(gen);
+  }
+}
@@ -0,0 +1,76 @@
+package de.digitalcollections.iiif.model.jackson;
+
+import de.digitalcollections.iiif.model.sharedcanvas.Resource;
+
+/**
+ * Access to the captured values of resources that were read with {@link
+ * IiifObjectMapper#lazyReader()}.
+ *
+ * <p>This is internal API for the (de)serializers of this library. The captured values are part of
+ * the state of a {@link Resource}, but not of its public interface, so the resource class provides
+ * them through an {@link Accessor} when it is initialized.
+ */
+public final class LazyValueAccess {
+
+  /** Reads and writes the captured values of resources, implemented by {@link Resource}. */
+  public interface Accessor {
+
+    void set(Resource<?> resource, String name, LazyValue value);
+
+    LazyValue get(Resource<?> resource, String name);
+
+    boolean hasAny(Resource<?> resource);
+  }
+
+  private static Accessor accessor;
+
+  private LazyValueAccess() {}
+
+  /**
+   * Set the accessor, this is done once by {@link Resource}.
+   *
+   * @param accessor the accessor
+   * @throws IllegalStateException if the accessor was already set
+   */
+  public static synchronized void setAccessor(Accessor accessor) {
+    if (LazyValueAccess.accessor != null) {
+      throw new IllegalStateException("The accessor for lazy values was already set");
+    }
+    LazyValueAccess.accessor = accessor;
+  }
+
+  /**
+   * Defer binding a property until it is accessed.
+   *
+   * @param resource the resource the property belongs to
+   * @param name JSON name of the property
+   * @param value the captured value of the property
+   */
+  public static void set(Resource<?> resource, String name, LazyValue value) {
+    accessor.set(resource, name, value);
+  }
+
+  /**
+   * Get the captured value of a property that was not bound yet.
+   *
+   * @param resource the resource the property belongs to
+   * @param name JSON name of the property
+   * @return the captured value, or null if the property is not lazy or was already bound
+   */
+  public static LazyValue get(Resource<?> resource, String name) {
+    return accessor.get(resource, name);
+  }
+
+  /**
+   * Check if any property of a resource has a captured value that was not bound yet.
+   *
+   * <p>This doesn't lock the resource, so it is cheap enough to be called for every resource that
+   * is serialized.
+   *
+   * @param resource the resource to check
+   * @return whether there are unbound properties
+   */
+  public static boolean hasAny(Resource<?> resource) {
+    return accessor.hasAny(resource);
+  }
+}
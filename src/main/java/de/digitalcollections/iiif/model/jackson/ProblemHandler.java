@@ -4,23 +4,67 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JavaType;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.DeserializationProblemHandler;
 import com.fasterxml.jackson.databind.deser.ValueInstantiator;
 import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import de.digitalcollections.iiif.model.openannotation.ContentAsText;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.util.Arrays;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.StreamSupport;
 import org.geojson.Feature;
 
 public class ProblemHandler extends DeserializationProblemHandler {
 
+  /** Public String-constructors of classes, empty if a class has none. */
+  private static final ClassValue<Optional<MethodHandle>> STRING_CONSTRUCTORS =
+      new ClassValue<Optional<MethodHandle>>() {
+        @Override
+        protected Optional<MethodHandle> computeValue(Class<?> type) {
+          return findConstructor(type, MethodType.methodType(void.class, String.class));
+        }
+      };
+
+  /** Public no-arg constructors of classes, empty if a class has none. */
+  private static final ClassValue<Optional<MethodHandle>> DEFAULT_CONSTRUCTORS =
+      new ClassValue<Optional<MethodHandle>>() {
+        @Override
+        protected Optional<MethodHandle> computeValue(Class<?> type) {
+          return findConstructor(type, MethodType.methodType(void.class));
+        }
+      };
+
+  /** Constants of enums by their lower-cased string representation. */
+  private static final ClassValue<Map<String, Object>> ENUM_CONSTANTS =
+      new ClassValue<Map<String, Object>>() {
+        @Override
+        protected Map<String, Object> computeValue(Class<?> type) {
+          Map<String, Object> constants = new HashMap<>();
+          for (Object constant : type.getEnumConstants()) {
+            constants.putIfAbsent(constant.toString().toLowerCase(Locale.ROOT), constant);
+          }
+          return constants;
+        }
+      };
+
+  private static Optional<MethodHandle> findConstructor(Class<?> type, MethodType signature) {
+    if (Modifier.isAbstract(type.getModifiers())) {
+      return Optional.empty();
+    }
+    try {
+      MethodHandle constructor = MethodHandles.publicLookup().findConstructor(type, signature);
+      return Optional.of(constructor.asType(signature.changeReturnType(Object.class)));
+    } catch (ReflectiveOperationException e) {
+      return Optional.empty();
+    }
+  }
+
   @Override
   public Object handleMissingInstantiator(
       DeserializationContext ctxt,
@@ -33,15 +77,23 @@ public class ProblemHandler extends DeserializationProblemHandler {
      * 1. Check if the deserializer bails out on a JSON string
      * 2. Find a String-constructor on the target class
      * 3. Build the object */
+    String value = p.getValueAsString();
     try {
       // Special case for empty strings in collection fields.
-      if (p.getValueAsString().isEmpty() && Collection.class.isAssignableFrom(instClass)) {
-        return instClass.getConstructor().newInstance();
-      } else {
-        Constructor<?> constructor = instClass.getConstructor(String.class);
-        return constructor.newInstance(p.getValueAsString());
+      if (value != null && value.isEmpty() && Collection.class.isAssignableFrom(instClass)) {
+        Optional<MethodHandle> constructor = DEFAULT_CONSTRUCTORS.get(instClass);
+        if (constructor.isPresent()) {
+          return (Object) constructor.get().invokeExact();
+        }
+      } else if (value != null) {
+        Optional<MethodHandle> constructor = STRING_CONSTRUCTORS.get(instClass);
+        if (constructor.isPresent()) {
+          return (Object) constructor.get().invokeExact(value);
+        }
       }
-    } catch (Exception e) {
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
       // Fall through
     }
     return super.handleMissingInstantiator(ctxt, instClass, valueInsta, p, msg);
@@ -55,16 +107,20 @@ public class ProblemHandler extends DeserializationProblemHandler {
       JsonParser p,
       String failureMsg)
       throws IOException {
-    if (p.getCurrentName().equals("@type") && t == JsonToken.START_ARRAY) {
+    if ("@type".equals(p.currentName()) && t == JsonToken.START_ARRAY) {
       // Handle multi-valued @types, only current known cases are oa:SvgSelector and oa:CssStyle
-      // in combination with cnt:ContentAsText
-      ObjectMapper mapper = (ObjectMapper) p.getCodec();
-      String typeName =
-          StreamSupport.stream(((ArrayNode) mapper.readTree(p)).spliterator(), false)
-              .map(JsonNode::textValue)
-              .filter(v -> !v.equals(ContentAsText.TYPE))
-              .findFirst()
-              .orElse(null);
+      // in combination with cnt:ContentAsText. The parser may belong to an ObjectReader, so the
+      // array is read from the tokens instead of with the codec.
+      String typeName = null;
+      for (JsonToken token = p.nextToken(); token != JsonToken.END_ARRAY; token = p.nextToken()) {
+        if (token == JsonToken.VALUE_STRING) {
+          if (typeName == null && !ContentAsText.TYPE.equals(p.getText())) {
+            typeName = p.getText();
+          }
+        } else {
+          p.skipChildren();
+        }
+      }
       if (typeName != null) {
         return typeName;
       }
@@ -87,13 +143,9 @@ public class ProblemHandler extends DeserializationProblemHandler {
       DeserializationContext ctxt, Class<?> targetType, String valueToConvert, String failureMsg)
       throws IOException {
     if (targetType.isEnum()) {
-      String lowerCased = valueToConvert.toLowerCase();
-      Optional<?> match =
-          Arrays.stream(targetType.getEnumConstants())
-              .filter(v -> v.toString().toLowerCase().equals(valueToConvert.toLowerCase()))
-              .findFirst();
-      if (match.isPresent()) {
-        return match.get();
+      Object match = ENUM_CONSTANTS.get(targetType).get(valueToConvert.toLowerCase(Locale.ROOT));
+      if (match != null) {
+        return match;
       }
     }
     return super.handleWeirdStringValue(ctxt, targetType, valueToConvert, failureMsg);
@@ -3,15 +3,27 @@ package de.digitalcollections.iiif.model.jackson;
 import com.fasterxml.jackson.databind.BeanDescription;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.introspect.AnnotatedField;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
 import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
 import com.fasterxml.jackson.databind.ser.impl.IndexedListSerializer;
 import com.fasterxml.jackson.databind.type.CollectionType;
+import de.digitalcollections.iiif.model.ImageContent;
 import de.digitalcollections.iiif.model.Profile;
+import de.digitalcollections.iiif.model.Service;
+import de.digitalcollections.iiif.model.jackson.serialization.CanvasesPropertyWriter;
+import de.digitalcollections.iiif.model.jackson.serialization.ContextPropertyWriter;
 import de.digitalcollections.iiif.model.jackson.serialization.IiifIndexedListSerializer;
+import de.digitalcollections.iiif.model.jackson.serialization.ImageTypePropertyWriter;
+import de.digitalcollections.iiif.model.jackson.serialization.LazyPropertyDeserializer;
+import de.digitalcollections.iiif.model.jackson.serialization.LazyPropertyWriter;
 import de.digitalcollections.iiif.model.jackson.serialization.ProfileSerializer;
 import de.digitalcollections.iiif.model.jackson.serialization.ResourceSerializer;
+import de.digitalcollections.iiif.model.jackson.serialization.ServiceSerializer;
 import de.digitalcollections.iiif.model.sharedcanvas.Resource;
+import de.digitalcollections.iiif.model.sharedcanvas.Sequence;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Modifies the serializer to support the following functions:
@@ -19,10 +31,41 @@ import java.util.ArrayList;
  * <p>- Add the JSON-LD '@context' property with the IIIF context to the top-level object -
  * Serialize empty Resources as null, Resources with only an @id as strings - Remove redundant
  * `@type` from Annotation.on and certain image resources - Add custom logic for when to unwrap
- * single values
+ * single values - Write lazy properties that were not bound yet as they were read - Write
+ * registered sub-resources from the {@link FragmentCache}
+ *
+ * <p>None of these modify the serialized objects, so they can be serialized from multiple threads
+ * at once.
  */
 public class SerializerModifier extends BeanSerializerModifier {
 
+  @Override
+  public List<BeanPropertyWriter> changeProperties(
+      SerializationConfig config,
+      BeanDescription beanDesc,
+      List<BeanPropertyWriter> beanProperties) {
+    Class<?> beanClass = beanDesc.getBeanClass();
+    if (!Resource.class.isAssignableFrom(beanClass)) {
+      return beanProperties;
+    }
+    for (int i = 0; i < beanProperties.size(); i++) {
+      BeanPropertyWriter writer = beanProperties.get(i);
+      // Subclasses may have their own @context getters, only the default field is replaced
+      if ("@context".equals(writer.getName()) && writer.getMember() instanceof AnnotatedField) {
+        beanProperties.set(i, new ContextPropertyWriter(writer));
+      } else if ("@type".equals(writer.getName())
+          && ImageContent.class.isAssignableFrom(beanClass)) {
+        beanProperties.set(i, new ImageTypePropertyWriter(writer));
+      } else if ("canvases".equals(writer.getName())
+          && Sequence.class.isAssignableFrom(beanClass)) {
+        beanProperties.set(i, new CanvasesPropertyWriter(writer));
+      } else if (LazyPropertyDeserializer.PROPERTY_NAMES.contains(writer.getName())) {
+        beanProperties.set(i, new LazyPropertyWriter(writer));
+      }
+    }
+    return beanProperties;
+  }
+
   @Override
   public JsonSerializer<?> modifyCollectionSerializer(
       SerializationConfig config,
@@ -43,6 +86,8 @@ public class SerializerModifier extends BeanSerializerModifier {
       return new ResourceSerializer((JsonSerializer<Object>) serializer);
     } else if (Profile.class.isAssignableFrom(beanDesc.getBeanClass())) {
       return new ProfileSerializer((JsonSerializer<Object>) serializer);
+    } else if (Service.class.isAssignableFrom(beanDesc.getBeanClass())) {
+      return new ServiceSerializer((JsonSerializer<Object>) serializer);
     }
     return super.modifySerializer(config, beanDesc, serializer);
   }
@@ -0,0 +1,264 @@
+package de.digitalcollections.iiif.model.jackson;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import de.digitalcollections.iiif.model.sharedcanvas.Canvas;
+import de.digitalcollections.iiif.model.sharedcanvas.Manifest;
+import de.digitalcollections.iiif.model.sharedcanvas.Sequence;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a manifest incrementally, so that its canvases don't need to be in memory all at once.
+ *
+ * <p>The manifest and its sequences are bound without their canvases. The canvases of all sequences
+ * are then bound one at a time while they are iterated, so that they can be discarded after they
+ * have been processed.
+ *
+ * <p>Since the input is only read once, properties of the manifest and its sequences that come
+ * after the canvases in the document are only set on them once all canvases have been read.
+ *
+ * <pre>
+ * try (StreamingManifestReader reader = mapper.openManifestReader(in)) {
+ *   Manifest manifest = reader.getManifest();
+ *   reader.streamCanvases().forEach(canvas -&gt; process(manifest, canvas));
+ * }
+ * </pre>
+ */
+public class StreamingManifestReader implements Closeable {
+
+  private enum State {
+    /** In the canvases array of a sequence. */
+    IN_CANVASES,
+    /** After the canvases of a sequence, the rest of the sequence has to be read. */
+    AFTER_CANVASES,
+    /** In the sequences array of the manifest. */
+    IN_SEQUENCES,
+    /** After the sequences, the rest of the manifest has to be read. */
+    AFTER_SEQUENCES,
+    DONE
+  }
+
+  private final JsonParser parser;
+  private final ObjectReader manifestReader;
+  private final ObjectReader sequenceReader;
+  private final ObjectReader canvasReader;
+  private final Manifest manifest;
+
+  private State state;
+  private boolean inSequencesArray;
+  private Sequence currentSequence;
+  private Canvas nextCanvas;
+  private boolean canvasesTaken;
+
+  /**
+   * Start reading a manifest.
+   *
+   * <p>Everything up to the first canvas is read right away.
+   *
+   * @param reader reader from an {@link IiifObjectMapper}
+   * @param parser parser for the manifest, will be closed together with this reader
+   * @throws IOException if the manifest could not be read
+   */
+  public StreamingManifestReader(ObjectReader reader, JsonParser parser) throws IOException {
+    this.parser = parser;
+    this.manifestReader = reader.forType(Manifest.class);
+    this.sequenceReader = reader.forType(Sequence.class);
+    this.canvasReader = reader.forType(Canvas.class);
+
+    if (!parser.hasCurrentToken()) {
+      parser.nextToken();
+    }
+    if (!parser.hasToken(JsonToken.START_OBJECT)) {
+      throw MismatchedInputException.from(parser, Manifest.class, "Manifest must be an object");
+    }
+    TokenBuffer header = new TokenBuffer(parser);
+    header.writeStartObject();
+    boolean hasSequences = bufferFields(header, "sequences");
+    header.writeEndObject();
+    this.manifest = manifestReader.readValue(header.asParser());
+
+    if (!hasSequences) {
+      state = State.DONE;
+    } else if (parser.hasToken(JsonToken.START_ARRAY)) {
+      // Like with the regular deserialization, an empty array results in an empty list
+      manifest.setSequences(new ArrayList<>());
+      inSequencesArray = true;
+      state = State.IN_SEQUENCES;
+    } else {
+      // A single sequence that is not wrapped in an array
+      openSequence();
+    }
+    // Read ahead to the first canvas, so that the default sequence is available right away
+    nextCanvas = readNextCanvas();
+  }
+
+  /**
+   * Get the manifest.
+   *
+   * @return the manifest with the sequences read so far, but without any canvases
+   */
+  public Manifest getManifest() {
+    return manifest;
+  }
+
+  /**
+   * Get the canvases of all sequences, they are read while iterating.
+   *
+   * <p>Can only be called once. {@link UncheckedIOException} is thrown if a canvas could not be
+   * read.
+   *
+   * @return iterator over the canvases
+   */
+  public Iterator<Canvas> canvases() {
+    checkState(!canvasesTaken, "Canvases can only be iterated once.");
+    canvasesTaken = true;
+    return new Iterator<Canvas>() {
+      @Override
+      public boolean hasNext() {
+        return nextCanvas != null;
+      }
+
+      @Override
+      public Canvas next() {
+        if (nextCanvas == null) {
+          throw new NoSuchElementException();
+        }
+        Canvas canvas = nextCanvas;
+        try {
+          nextCanvas = readNextCanvas();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return canvas;
+      }
+    };
+  }
+
+  /**
+   * Get the canvases of all sequences as a stream, they are read while the stream is consumed.
+   *
+   * @return stream of the canvases
+   * @see #canvases()
+   */
+  public Stream<Canvas> streamCanvases() {
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(canvases(), Spliterator.ORDERED | Spliterator.NONNULL),
+        false);
+  }
+
+  @Override
+  public void close() throws IOException {
+    parser.close();
+  }
+
+  private Canvas readNextCanvas() throws IOException {
+    while (true) {
+      switch (state) {
+        case IN_CANVASES:
+          JsonToken t = parser.nextToken();
+          if (t == JsonToken.END_ARRAY) {
+            state = State.AFTER_CANVASES;
+          } else if (t != JsonToken.VALUE_NULL) {
+            return canvasReader.readValue(parser);
+          }
+          break;
+        case AFTER_CANVASES:
+          TokenBuffer rest = new TokenBuffer(parser);
+          rest.writeStartObject();
+          bufferFields(rest, null);
+          rest.writeEndObject();
+          sequenceReader.withValueToUpdate(currentSequence).readValue(rest.asParser());
+          state = inSequencesArray ? State.IN_SEQUENCES : State.AFTER_SEQUENCES;
+          break;
+        case IN_SEQUENCES:
+          if (parser.nextToken() == JsonToken.END_ARRAY) {
+            state = State.AFTER_SEQUENCES;
+          } else {
+            Canvas canvas = openSequence();
+            if (canvas != null) {
+              return canvas;
+            }
+          }
+          break;
+        case AFTER_SEQUENCES:
+          TokenBuffer trailer = new TokenBuffer(parser);
+          trailer.writeStartObject();
+          bufferFields(trailer, null);
+          trailer.writeEndObject();
+          manifestReader.withValueToUpdate(manifest).readValue(trailer.asParser());
+          state = State.DONE;
+          break;
+        default:
+          return null;
+      }
+    }
+  }
+
+  /**
+   * Read a sequence up to its canvases and add it to the manifest.
+   *
+   * @return the canvas if the sequence has a single canvas that is not wrapped in an array
+   */
+  private Canvas openSequence() throws IOException {
+    Canvas singleCanvas = null;
+    if (parser.hasToken(JsonToken.START_OBJECT)) {
+      TokenBuffer header = new TokenBuffer(parser);
+      header.writeStartObject();
+      boolean hasCanvases = bufferFields(header, "canvases");
+      header.writeEndObject();
+      currentSequence = sequenceReader.readValue(header.asParser());
+      if (!hasCanvases) {
+        state = inSequencesArray ? State.IN_SEQUENCES : State.AFTER_SEQUENCES;
+      } else if (parser.hasToken(JsonToken.START_ARRAY)) {
+        state = State.IN_CANVASES;
+      } else {
+        if (!parser.hasToken(JsonToken.VALUE_NULL)) {
+          singleCanvas = canvasReader.readValue(parser);
+        }
+        state = State.AFTER_CANVASES;
+      }
+    } else {
+      // Only a reference to the sequence
+      currentSequence = sequenceReader.readValue(parser);
+      state = inSequencesArray ? State.IN_SEQUENCES : State.AFTER_SEQUENCES;
+    }
+    if (currentSequence != null) {
+      manifest.addSequence(currentSequence);
+    }
+    return singleCanvas;
+  }
+
+  /**
+   * Copy the fields of the current object to the buffer, until the given field or the end of the
+   * object is reached.
+   *
+   * @return true if the parser is positioned on the value of the stop field, false if it is
+   *     positioned on the end of the object
+   */
+  private boolean bufferFields(TokenBuffer buffer, String stopField) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.currentName();
+      parser.nextToken();
+      if (fieldName.equals(stopField)) {
+        return true;
+      }
+      buffer.writeFieldName(fieldName);
+      buffer.copyCurrentStructure(parser);
+    }
+    return false;
+  }
+}
@@ -0,0 +1,209 @@
+package de.digitalcollections.iiif.model.jackson;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import de.digitalcollections.iiif.model.jackson.serialization.CanvasesPropertyWriter;
+import de.digitalcollections.iiif.model.sharedcanvas.Canvas;
+import de.digitalcollections.iiif.model.sharedcanvas.Manifest;
+import de.digitalcollections.iiif.model.sharedcanvas.Sequence;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Writes a manifest incrementally, so that its canvases don't need to be in memory all at once.
+ *
+ * <p>All properties of the manifest are taken from a skeleton manifest. The canvases of its default
+ * sequence are then written one at a time, directly to the output. Canvases that are already part
+ * of the skeleton's default sequence are written first. Once the writer is closed, the output is
+ * identical to the serialization of the manifest with all canvases added to it.
+ *
+ * <pre>
+ * try (StreamingManifestWriter writer = mapper.openManifestWriter(skeleton, out)) {
+ *   writer.writeCanvases(canvasIterator);
+ * }
+ * </pre>
+ */
+public class StreamingManifestWriter implements Closeable {
+
+  /** Decides when the output is flushed while canvases are written. */
+  @FunctionalInterface
+  public interface FlushPolicy {
+
+    /** Only flush when the output buffer is full and when the writer is closed. */
+    FlushPolicy NONE = canvasesWritten -> false;
+
+    /** Flush after every canvas, e.g. for chunked HTTP responses. */
+    FlushPolicy EACH_CANVAS = canvasesWritten -> true;
+
+    /**
+     * Flush after every n canvases.
+     *
+     * @param canvases number of canvases after which to flush
+     * @return the flush policy
+     */
+    static FlushPolicy every(int canvases) {
+      checkArgument(canvases > 0, "Number of canvases must be positive");
+      return canvasesWritten -> canvasesWritten % canvases == 0;
+    }
+
+    /**
+     * Decide if the output should be flushed.
+     *
+     * @param canvasesWritten number of canvases that were written so far
+     * @return whether to flush the output
+     */
+    boolean shouldFlush(long canvasesWritten);
+  }
+
+  private final JsonGenerator generator;
+  private final SequenceWriter canvasWriter;
+  private final FlushPolicy flushPolicy;
+
+  /** The serialized skeleton, positioned at the placeholder for the canvases. */
+  private final JsonParser skeletonParser;
+
+  private final String canvasesField;
+  private boolean canvasesStarted;
+  private long canvasesWritten;
+  private boolean closed;
+
+  /**
+   * Start writing a manifest.
+   *
+   * <p>Everything up to the canvases is written right away.
+   *
+   * @param writer writer from an {@link IiifObjectMapper}, e.g. one with a pretty printer
+   * @param skeleton the manifest, needs to have a default sequence the canvases are written to
+   * @param out the stream to write to
+   * @param flushPolicy decides when to flush the output
+   * @throws IOException if the manifest could not be written
+   */
+  public StreamingManifestWriter(
+      ObjectWriter writer, Manifest skeleton, OutputStream out, FlushPolicy flushPolicy)
+      throws IOException {
+    Sequence sequence = skeleton.getDefaultSequence();
+    checkArgument(sequence != null, "Manifest needs a sequence to write the canvases to.");
+    this.flushPolicy = flushPolicy;
+    writer = writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    // Serialize everything but the canvases, the sequence gets a placeholder for them
+    TokenBuffer skeletonBuffer = new TokenBuffer((ObjectCodec) null, false);
+    writer
+        .withAttribute(CanvasesPropertyWriter.STREAMED_SEQUENCE, sequence)
+        .writeValue(skeletonBuffer, skeleton);
+    this.skeletonParser = skeletonBuffer.asParser();
+
+    this.generator = writer.createGenerator(out);
+    // Must be created before anything is written, since it configures the generator
+    this.canvasWriter = writer.writeValues(generator);
+    this.canvasesField = copyUntilPlaceholder();
+
+    // An empty list of canvases is still serialized, only a missing one isn't
+    if (sequence.getCanvases() != null) {
+      startCanvases();
+      for (Canvas canvas : sequence.getCanvases()) {
+        writeCanvas(canvas);
+      }
+    }
+  }
+
+  /** Copy the serialized skeleton to the output, up to the placeholder for the canvases. */
+  private String copyUntilPlaceholder() throws IOException {
+    for (JsonToken t = skeletonParser.nextToken(); t != null; t = skeletonParser.nextToken()) {
+      if (t == JsonToken.FIELD_NAME) {
+        String fieldName = skeletonParser.currentName();
+        t = skeletonParser.nextToken();
+        if (t == JsonToken.VALUE_EMBEDDED_OBJECT
+            && skeletonParser.getEmbeddedObject() == CanvasesPropertyWriter.PLACEHOLDER) {
+          return fieldName;
+        }
+        generator.writeFieldName(fieldName);
+      }
+      generator.copyCurrentEvent(skeletonParser);
+    }
+    throw new IllegalStateException("Could not find the canvases in the serialized manifest.");
+  }
+
+  private void startCanvases() throws IOException {
+    generator.writeFieldName(canvasesField);
+    generator.writeStartArray();
+    canvasesStarted = true;
+  }
+
+  /**
+   * Write a canvas to the default sequence of the manifest.
+   *
+   * @param canvas the canvas to write
+   * @return this writer
+   * @throws IOException if the canvas could not be written
+   */
+  public StreamingManifestWriter writeCanvas(Canvas canvas) throws IOException {
+    checkState(!closed, "Writer is already closed.");
+    if (!canvasesStarted) {
+      startCanvases();
+    }
+    canvasWriter.write(canvas);
+    canvasesWritten++;
+    if (flushPolicy.shouldFlush(canvasesWritten)) {
+      generator.flush();
+    }
+    return this;
+  }
+
+  /**
+   * Write all canvases from an iterator to the default sequence of the manifest.
+   *
+   * @param canvases the canvases to write, are only consumed one at a time
+   * @return this writer
+   * @throws IOException if a canvas could not be written
+   */
+  public StreamingManifestWriter writeCanvases(Iterator<? extends Canvas> canvases)
+      throws IOException {
+    while (canvases.hasNext()) {
+      writeCanvas(canvases.next());
+    }
+    return this;
+  }
+
+  /**
+   * Flush the output.
+   *
+   * @throws IOException if the output could not be flushed
+   */
+  public void flush() throws IOException {
+    generator.flush();
+  }
+
+  /**
+   * Finish the manifest with everything after the canvases and close the output.
+   *
+   * @throws IOException if the manifest could not be written
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (canvasesStarted) {
+      generator.writeEndArray();
+    }
+    while (skeletonParser.nextToken() != null) {
+      generator.copyCurrentEvent(skeletonParser);
+    }
+    skeletonParser.close();
+    canvasWriter.close();
+    generator.close();
+  }
+}
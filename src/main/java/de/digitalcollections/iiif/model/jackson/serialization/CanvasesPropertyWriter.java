@@ -0,0 +1,34 @@
+package de.digitalcollections.iiif.model.jackson.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+
+/**
+ * Writes the canvases of a sequence, or a placeholder for them if they are streamed separately.
+ *
+ * @see de.digitalcollections.iiif.model.jackson.StreamingManifestWriter
+ */
+public class CanvasesPropertyWriter extends BeanPropertyWriter {
+
+  /** Serialization attribute with the sequence whose canvases are streamed separately. */
+  public static final Object STREAMED_SEQUENCE = new Object();
+
+  /** Embedded object that is written in place of the streamed canvases. */
+  public static final Object PLACEHOLDER = new Object();
+
+  public CanvasesPropertyWriter(BeanPropertyWriter base) {
+    super(base);
+  }
+
+  @Override
+  public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov)
+      throws Exception {
+    if (prov.getAttribute(STREAMED_SEQUENCE) == bean) {
+      gen.writeFieldName(_name);
+      gen.writeEmbeddedObject(PLACEHOLDER);
+    } else {
+      super.serializeAsField(bean, gen, prov);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package de.digitalcollections.iiif.model.jackson.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import de.digitalcollections.iiif.model.sharedcanvas.Resource;
+
+/**
+ * Writes the JSON-LD `@context` of a resource.
+ *
+ * <p>The top-level resource always gets the IIIF context, without having to set it on the resource
+ * itself, so that the same resource can be serialized concurrently.
+ */
+public class ContextPropertyWriter extends BeanPropertyWriter {
+
+  public ContextPropertyWriter(BeanPropertyWriter base) {
+    super(base);
+  }
+
+  @Override
+  public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov)
+      throws Exception {
+    Object context = ResourceSerializer.isTopLevel(bean, prov) ? Resource.CONTEXT : get(bean);
+    if (context != null) {
+      gen.writeFieldName(_name);
+      gen.writeString(context.toString());
+    }
+  }
+}
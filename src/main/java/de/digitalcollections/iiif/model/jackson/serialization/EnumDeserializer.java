@@ -4,19 +4,33 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.google.common.base.CaseFormat;
+import com.google.common.collect.Maps;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
 
 public class EnumDeserializer extends JsonDeserializer<Enum> {
 
   private final Class<? extends Enum> enumType;
 
+  /** Constants by their lower camel case name, so that known values don't have to be converted. */
+  private final Map<String, Enum> constants;
+
   public EnumDeserializer(Class<? extends Enum> enumType) {
     this.enumType = enumType;
+    this.constants =
+        Maps.uniqueIndex(
+            Arrays.asList(enumType.getEnumConstants()),
+            e -> CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, e.name()));
   }
 
   @Override
   public Enum deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
-    return Enum.valueOf(
-        enumType, CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, p.getValueAsString()));
+    String value = p.getValueAsString();
+    Enum constant = constants.get(value);
+    if (constant != null) {
+      return constant;
+    }
+    return Enum.valueOf(enumType, CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, value));
   }
 }
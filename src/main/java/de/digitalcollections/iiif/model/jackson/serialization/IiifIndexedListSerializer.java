@@ -11,6 +11,7 @@ import com.fasterxml.jackson.databind.ser.impl.IndexedListSerializer;
 import com.fasterxml.jackson.databind.ser.std.AsArraySerializerBase;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.google.common.collect.ImmutableSet;
+import de.digitalcollections.iiif.model.jackson.FragmentCache;
 import java.io.IOException;
 import java.util.List;
 
@@ -21,6 +22,9 @@ import java.util.List;
  *
  * <p>Apart from this, the code is identical to {@link IndexedListSerializer} and delegates to it
  * where possible.
+ *
+ * <p>Whether a field should be unwrapped is decided once per property when the serializer is
+ * contextualized.
  */
 public final class IiifIndexedListSerializer extends AsArraySerializerBase<List<?>> {
 
@@ -41,9 +45,13 @@ public final class IiifIndexedListSerializer extends AsArraySerializerBase<List<
 
   private final IndexedListSerializer defaultSerializer;
 
+  /** Whether single values are unwrapped, null if the field is only known during serialization. */
+  private final Boolean unwrapField;
+
   public IiifIndexedListSerializer(IndexedListSerializer defaultSerializer, TypeFactory tf) {
     super(List.class, tf.constructSimpleType(Object.class, new JavaType[] {}), false, null, null);
     this.defaultSerializer = defaultSerializer;
+    this.unwrapField = null;
   }
 
   private IiifIndexedListSerializer(
@@ -53,7 +61,12 @@ public final class IiifIndexedListSerializer extends AsArraySerializerBase<List<
       JsonSerializer<?> valueSerializer,
       Boolean unwrapSingle) {
     super(src, prop, vts, valueSerializer, unwrapSingle);
-    this.defaultSerializer = src.defaultSerializer;
+    // The default serializer needs the property as well, so that it can pass it on to the
+    // serializers of the elements
+    this.defaultSerializer =
+        src.defaultSerializer.withResolved(prop, vts, valueSerializer, unwrapSingle);
+    String field = ResourceSerializer.getPropertyField(prop);
+    this.unwrapField = field == null ? null : UNWRAP_FIELDS.contains(field);
   }
 
   @Override
@@ -68,10 +81,17 @@ public final class IiifIndexedListSerializer extends AsArraySerializerBase<List<
   @Override
   public final void serialize(List<?> value, JsonGenerator gen, SerializerProvider provider)
       throws IOException {
+    if (!FragmentCache.isInUse()
+        || !FragmentCache.writeCached(value, gen, provider, this::serializeList)) {
+      serializeList(value, gen, provider);
+    }
+  }
+
+  private void serializeList(List<?> value, JsonGenerator gen, SerializerProvider provider)
+      throws IOException {
     final int len = value.size();
-    String currentName = gen.getOutputContext().getCurrentName();
     // Special case: Unwrap certain fields
-    if (UNWRAP_FIELDS.contains(currentName) && len == 1) {
+    if (len == 1 && isUnwrapField(gen)) {
       defaultSerializer.serializeContents(value, gen, provider);
       return;
     }
@@ -82,6 +102,13 @@ public final class IiifIndexedListSerializer extends AsArraySerializerBase<List<
     gen.writeEndArray();
   }
 
+  private boolean isUnwrapField(JsonGenerator gen) {
+    if (unwrapField != null) {
+      return unwrapField;
+    }
+    return UNWRAP_FIELDS.contains(gen.getOutputContext().getCurrentName());
+  }
+
   @Override
   protected void serializeContents(List<?> value, JsonGenerator gen, SerializerProvider provider)
       throws IOException {
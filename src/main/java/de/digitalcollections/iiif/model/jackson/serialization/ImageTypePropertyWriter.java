@@ -0,0 +1,24 @@
+package de.digitalcollections.iiif.model.jackson.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+
+/** Writes the `@type` of an image, unless it is redundant because the image is a thumbnail/logo. */
+public class ImageTypePropertyWriter extends BeanPropertyWriter {
+
+  public ImageTypePropertyWriter(BeanPropertyWriter base) {
+    super(base);
+  }
+
+  @Override
+  public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov)
+      throws Exception {
+    // The output context is the one of the image object, the field is set on its parent context
+    String containingField =
+        ResourceSerializer.getContainingField(gen.getOutputContext().getParent());
+    if (!ResourceSerializer.isImplicitImageField(containingField)) {
+      super.serializeAsField(bean, gen, prov);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package de.digitalcollections.iiif.model.jackson.serialization;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.google.common.collect.ImmutableSet;
+import de.digitalcollections.iiif.model.jackson.LazyValue;
+import de.digitalcollections.iiif.model.jackson.LazyValueAccess;
+import de.digitalcollections.iiif.model.sharedcanvas.Resource;
+import java.io.IOException;
+
+/**
+ * Captures the value of a rarely accessed property instead of binding it, so that it is only bound
+ * when its getter is called.
+ *
+ * <p>This is only done for reads with the {@link #LAZY_PROPERTIES} attribute set, see {@link
+ * de.digitalcollections.iiif.model.jackson.IiifObjectMapper#lazyReader()}.
+ */
+public class LazyPropertyDeserializer extends SettableBeanProperty.Delegating {
+
+  /** Deserialization attribute that enables capturing the lazy properties. */
+  public static final Object LAZY_PROPERTIES = new Object();
+
+  /** Names of the properties that can be captured, their getters have to bind them. */
+  public static final ImmutableSet<String> PROPERTY_NAMES =
+      ImmutableSet.of("metadata", "seeAlso", "structures", "otherContent");
+
+  public LazyPropertyDeserializer(SettableBeanProperty delegate) {
+    super(delegate);
+  }
+
+  @Override
+  protected SettableBeanProperty withDelegate(SettableBeanProperty d) {
+    return new LazyPropertyDeserializer(d);
+  }
+
+  @Override
+  public void deserializeAndSet(JsonParser p, DeserializationContext ctxt, Object instance)
+      throws IOException {
+    LazyValue value = capture(p, ctxt);
+    if (value != null) {
+      LazyValueAccess.set((Resource<?>) instance, getName(), value);
+    } else {
+      delegate.deserializeAndSet(p, ctxt, instance);
+    }
+  }
+
+  @Override
+  public Object deserializeSetAndReturn(JsonParser p, DeserializationContext ctxt, Object instance)
+      throws IOException {
+    LazyValue value = capture(p, ctxt);
+    if (value != null) {
+      LazyValueAccess.set((Resource<?>) instance, getName(), value);
+      return instance;
+    }
+    return delegate.deserializeSetAndReturn(p, ctxt, instance);
+  }
+
+  /** Capture the value of the property, or return null if it has to be bound right away. */
+  private LazyValue capture(JsonParser p, DeserializationContext ctxt) throws IOException {
+    if (ctxt.getAttribute(LAZY_PROPERTIES) == null || p.hasToken(JsonToken.VALUE_NULL)) {
+      return null;
+    }
+    ObjectReader reader = getReader(p.getCodec());
+    if (reader == null) {
+      return null;
+    }
+    // The buffer must not refer to the parser's contexts, since those are reused while parsing
+    TokenBuffer tokens = new TokenBuffer(p.getCodec(), false);
+    tokens.copyCurrentStructure(p);
+    return new LazyValue(tokens, reader);
+  }
+
+  private ObjectReader getReader(ObjectCodec codec) {
+    if (codec instanceof ObjectReader) {
+      return ((ObjectReader) codec).forType(getType());
+    } else if (codec instanceof ObjectMapper) {
+      return ((ObjectMapper) codec).readerFor(getType());
+    } else {
+      return null;
+    }
+  }
+}
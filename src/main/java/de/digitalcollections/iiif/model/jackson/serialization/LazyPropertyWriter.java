@@ -0,0 +1,32 @@
+package de.digitalcollections.iiif.model.jackson.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import de.digitalcollections.iiif.model.jackson.LazyValue;
+import de.digitalcollections.iiif.model.jackson.LazyValueAccess;
+import de.digitalcollections.iiif.model.sharedcanvas.Resource;
+
+/**
+ * Writes a lazy property as it was read, as long as it was not bound.
+ *
+ * @see LazyPropertyDeserializer
+ */
+public class LazyPropertyWriter extends BeanPropertyWriter {
+
+  public LazyPropertyWriter(BeanPropertyWriter base) {
+    super(base);
+  }
+
+  @Override
+  public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov)
+      throws Exception {
+    LazyValue value = LazyValueAccess.get((Resource<?>) bean, getName());
+    if (value != null) {
+      gen.writeFieldName(_name);
+      value.writeTo(gen);
+    } else {
+      super.serializeAsField(bean, gen, prov);
+    }
+  }
+}
@@ -35,7 +35,7 @@ public class ProfileDeserializer extends JsonDeserializer<Profile> {
         return new Profile(URI.create(p.getValueAsString()));
       }
     } else if (p.getCurrentToken() == JsonToken.START_OBJECT) {
-      return p.getCodec().readValue(p, ImageApiProfile.class);
+      return StreamingDispatch.readValue(p, ImageApiProfile.class, ctxt);
     } else {
       return (Profile) defaultDeserializer.deserialize(p, ctxt);
     }
@@ -3,7 +3,7 @@ package de.digitalcollections.iiif.model.jackson.serialization;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
-import de.digitalcollections.iiif.model.ModelUtilities;
+import de.digitalcollections.iiif.model.CompletenessPlan;
 import de.digitalcollections.iiif.model.ModelUtilities.Completeness;
 import de.digitalcollections.iiif.model.Profile;
 import de.digitalcollections.iiif.model.image.ImageApiProfile;
@@ -11,6 +11,9 @@ import java.io.IOException;
 
 public class ProfileSerializer extends JsonSerializer<Profile> {
 
+  private static final CompletenessPlan PROFILE_COMPLETENESS =
+      CompletenessPlan.forType(Profile.class);
+
   private final JsonSerializer<Object> defaultSerializer;
 
   public ProfileSerializer(JsonSerializer<Object> defaultSerializer) {
@@ -20,7 +23,7 @@ public class ProfileSerializer extends JsonSerializer<Profile> {
   @Override
   public void serialize(Profile value, JsonGenerator gen, SerializerProvider serializers)
       throws IOException {
-    Completeness completeness = ModelUtilities.getCompleteness(value, Profile.class);
+    Completeness completeness = PROFILE_COMPLETENESS.evaluate(value);
     if (completeness == Completeness.ID_ONLY
         || (value instanceof ImageApiProfile && completeness == Completeness.ID_AND_TYPE)) {
       gen.writeString(value.getIdentifier().toString());
@@ -1,66 +1,91 @@
 package de.digitalcollections.iiif.model.jackson.serialization;
 
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.node.TextNode;
 import de.digitalcollections.iiif.model.PropertyValue;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class PropertyValueDeserializer extends JsonDeserializer<PropertyValue> {
 
+  /** Upper bound for the locale cache, so that arbitrary input can't make it grow indefinitely. */
+  private static final int MAX_CACHED_LOCALES = 512;
+
+  private static final ConcurrentMap<String, Locale> LOCALES = new ConcurrentHashMap<>();
+
   @Override
   public PropertyValue deserialize(JsonParser jp, DeserializationContext dc) throws IOException {
-    ObjectMapper mapper = (ObjectMapper) jp.getCodec();
-    TreeNode node = mapper.readTree(jp);
-
-    if (TextNode.class.isAssignableFrom(node.getClass())) {
-      // Simple string
-      return new PropertyValue(((TextNode) node).textValue());
-    } else if (ObjectNode.class.isAssignableFrom(node.getClass())) {
-      // Complex object
-      String language = ((TextNode) node.get("@language")).textValue();
-      String value = ((TextNode) node.get("@value")).textValue();
-      return new PropertyValue(Locale.forLanguageTag(language), value);
-    } else if (ArrayNode.class.isAssignableFrom(node.getClass())) {
-      // Array of multiple values
-      ArrayNode arr = (ArrayNode) node;
-      ObjectNode curObj;
-      PropertyValue propVal = new PropertyValue();
-      for (int i = 0; i < arr.size(); i++) {
-        if (ObjectNode.class.isAssignableFrom(arr.get(i).getClass())) {
-          // Complex object
-          curObj = (ObjectNode) arr.get(i);
-          String lang = "";
-          if (curObj.has("@language")) {
-            lang = curObj.get("@language").textValue();
+    PropertyValue propVal = new PropertyValue();
+    switch (jp.getCurrentToken()) {
+      case VALUE_STRING:
+        // Simple string
+        propVal.addValue(jp.getText());
+        break;
+      case START_OBJECT:
+        // Complex object
+        parseLocalizedValue(jp, propVal);
+        break;
+      case START_ARRAY:
+        // Array of multiple values
+        for (JsonToken t = jp.nextToken(); t != JsonToken.END_ARRAY; t = jp.nextToken()) {
+          if (t == JsonToken.START_OBJECT) {
+            parseLocalizedValue(jp, propVal);
+          } else if (t == JsonToken.VALUE_STRING) {
+            propVal.addValue(jp.getText());
+          } else {
+            jp.skipChildren();
           }
-          final Locale locale = Locale.forLanguageTag(lang);
-          TreeNode valueNode = curObj.get("@value");
-          if (TextNode.class.isAssignableFrom(valueNode.getClass())) {
-            // Single value
-            propVal.addValue(locale, curObj.get("@value").textValue());
-          } else if (valueNode instanceof ArrayNode) {
-            // Multiple values
-            StreamSupport.stream(((ArrayNode) valueNode).spliterator(), false)
-                .map(JsonNode::textValue)
-                .forEach(v -> propVal.addValue(locale, v));
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Property values must be strings, objects or arrays");
+    }
+    return propVal;
+  }
+
+  /** Parse an object with a `@language` and one or more `@value`s, in any order. */
+  private void parseLocalizedValue(JsonParser jp, PropertyValue propVal) throws IOException {
+    String language = "";
+    List<String> values = new ArrayList<>();
+    for (JsonToken t = jp.nextToken(); t == JsonToken.FIELD_NAME; t = jp.nextToken()) {
+      String fieldName = jp.currentName();
+      t = jp.nextToken();
+      if ("@language".equals(fieldName) && t == JsonToken.VALUE_STRING) {
+        language = jp.getText();
+      } else if ("@value".equals(fieldName) && t == JsonToken.VALUE_STRING) {
+        // Single value
+        values.add(jp.getText());
+      } else if ("@value".equals(fieldName) && t == JsonToken.START_ARRAY) {
+        // Multiple values
+        while (jp.nextToken() != JsonToken.END_ARRAY) {
+          if (jp.hasToken(JsonToken.VALUE_STRING)) {
+            values.add(jp.getText());
+          } else {
+            jp.skipChildren();
           }
-        } else if (TextNode.class.isAssignableFrom(arr.get(i).getClass())) {
-          // Simple string
-          propVal.addValue(arr.get(i).asText());
         }
+      } else {
+        jp.skipChildren();
+      }
+    }
+    Locale locale = getLocale(language);
+    values.forEach(v -> propVal.addValue(locale, v));
+  }
+
+  private static Locale getLocale(String languageTag) {
+    Locale locale = LOCALES.get(languageTag);
+    if (locale == null) {
+      locale = Locale.forLanguageTag(languageTag);
+      if (LOCALES.size() < MAX_CACHED_LOCALES) {
+        LOCALES.putIfAbsent(languageTag, locale);
       }
-      return propVal;
-    } else {
-      throw new IllegalArgumentException("Property values must be strings, objects or arrays");
     }
+    return locale;
   }
 }
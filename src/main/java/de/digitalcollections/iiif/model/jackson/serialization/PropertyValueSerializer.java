@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import de.digitalcollections.iiif.model.PropertyValue;
+import de.digitalcollections.iiif.model.jackson.FragmentCache;
 import java.io.IOException;
 import java.util.Locale;
 import java.util.Set;
@@ -29,6 +30,14 @@ public class PropertyValueSerializer extends StdSerializer<PropertyValue> {
   @Override
   public void serialize(PropertyValue value, JsonGenerator jgen, SerializerProvider provider)
       throws IOException {
+    if (!FragmentCache.isInUse()
+        || !FragmentCache.writeCached(value, jgen, provider, this::serializeValue)) {
+      serializeValue(value, jgen, provider);
+    }
+  }
+
+  private void serializeValue(PropertyValue value, JsonGenerator jgen, SerializerProvider provider)
+      throws IOException {
     if (value.getLocalizations().size() == 1 && value.getLocalizations().contains(Locale.ROOT)) {
       // Simple property value
       if (value.getValues().size() == 1) {
@@ -1,15 +1,11 @@
 package de.digitalcollections.iiif.model.jackson.serialization;
 
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.JsonStreamContext;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.google.common.collect.ImmutableMap;
 import de.digitalcollections.iiif.model.ImageContent;
 import de.digitalcollections.iiif.model.Motivation;
@@ -33,6 +29,9 @@ import java.io.IOException;
  *
  * <p>Needed since we need to preserve the @type for OtherContent, which would get lost if we left
  * the type resolving to Jackson.
+ *
+ * <p>Objects are dispatched in a streaming fashion: Only the fields before `@type` are buffered,
+ * the rest of the object is bound directly from the parser without building a tree first.
  */
 public class ResourceDeserializer extends JsonDeserializer<Resource> {
 
@@ -52,20 +51,16 @@ public class ResourceDeserializer extends JsonDeserializer<Resource> {
           .put(CssStyle.TYPE, CssStyle.class)
           .build();
 
+  @Override
   public Resource deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
-    ObjectMapper mapper = (ObjectMapper) p.getCodec();
-    String containingField = getContainingField(p);
-    if (p.getCurrentToken() == JsonToken.START_OBJECT) {
-      ObjectNode obj = mapper.readTree(p);
-      String typeName = getTypeName(containingField, ctxt, obj);
-      if (typeName.equals("oa:Choice")) {
-        return parseChoice(containingField, mapper, obj, ctxt);
-      } else {
-        return mapper.treeToValue(obj, MAPPING.getOrDefault(typeName, OtherContent.class));
-      }
+    if (p.hasToken(JsonToken.START_OBJECT) || p.hasToken(JsonToken.FIELD_NAME)) {
+      // The parser is already inside of the object, but we need the context the object is in
+      JsonStreamContext fieldContext = p.getParsingContext().getParent();
+      return parseObject(getContainingField(fieldContext), fieldContext, p, ctxt);
     } else if (p.getCurrentToken() == JsonToken.VALUE_STRING) {
+      JsonStreamContext fieldContext = p.getParsingContext();
       String stringValue = p.getValueAsString();
-      String typeName = getMissingType(ctxt, containingField);
+      String typeName = getMissingType(fieldContext, getContainingField(fieldContext));
       return resourceFromString(MAPPING.getOrDefault(typeName, OtherContent.class), stringValue);
     } else if (p.getCurrentToken() == JsonToken.START_ARRAY) {
       // TODO
@@ -75,35 +70,144 @@ public class ResourceDeserializer extends JsonDeserializer<Resource> {
     }
   }
 
-  private String getTypeName(String containingField, DeserializationContext ctxt, ObjectNode obj) {
-    JsonNode typeNode = obj.get("@type");
-    if (typeNode.isMissingNode()) {
-      return getMissingType(ctxt, containingField);
+  private Resource parseObject(
+      String containingField,
+      JsonStreamContext fieldContext,
+      JsonParser p,
+      DeserializationContext ctxt)
+      throws IOException {
+    JsonToken t = p.getCurrentToken();
+    if (t == JsonToken.START_OBJECT) {
+      t = p.nextToken();
+    }
+    // Buffer everything up to the first usable @type
+    TokenBuffer prefix = null;
+    String typeName = null;
+    for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+      String fieldName = p.currentName();
+      if (p.nextToken() == JsonToken.VALUE_STRING && "@type".equals(fieldName)) {
+        typeName = p.getText();
+        break;
+      }
+      if (prefix == null) {
+        prefix = StreamingDispatch.startObject(p, ctxt);
+      }
+      prefix.writeFieldName(fieldName);
+      prefix.copyCurrentStructure(p);
+    }
+
+    if (typeName == null) {
+      // No @type, so the complete object is in the buffer and the type has to be inferred
+      if (prefix == null) {
+        prefix = StreamingDispatch.startObject(p, ctxt);
+      }
+      prefix.writeEndObject();
+      String missingType = getMissingType(fieldContext, containingField);
+      return readResource(
+          prefix.asParserOnFirstToken(),
+          MAPPING.getOrDefault(missingType, OtherContent.class),
+          null,
+          fieldContext,
+          ctxt);
+    }
+
+    JsonParser objectParser;
+    if (prefix == null) {
+      // @type was the first field, so the target deserializer can take over right after it
+      p.nextToken();
+      objectParser = p;
     } else {
-      return typeNode.textValue();
+      objectParser = StreamingDispatch.prefixed(prefix, p);
+    }
+    if (typeName.equals("oa:Choice")) {
+      return parseChoice(containingField, fieldContext, objectParser, ctxt);
+    } else {
+      return readResource(
+          objectParser,
+          MAPPING.getOrDefault(typeName, OtherContent.class),
+          typeName,
+          fieldContext,
+          ctxt);
+    }
+  }
+
+  private Resource readResource(
+      JsonParser p,
+      Class<? extends Resource> resourceType,
+      String typeName,
+      JsonStreamContext fieldContext,
+      DeserializationContext ctxt)
+      throws IOException {
+    Resource resource = StreamingDispatch.readKeepingParent(p, resourceType, ctxt, fieldContext);
+    // @type is not passed on to the deserializer, but OtherContent needs to preserve it
+    if (typeName != null && resource instanceof OtherContent) {
+      ((OtherContent) resource).setType(typeName);
     }
+    return resource;
   }
 
   private Resource parseChoice(
-      String containingField, ObjectMapper mapper, ObjectNode tree, DeserializationContext ctxt)
-      throws JsonProcessingException {
-    ObjectNode defaultTree = (ObjectNode) tree.get("default");
-    Class<? extends Resource> resourceType =
-        MAPPING.getOrDefault(getTypeName(containingField, ctxt, defaultTree), OtherContent.class);
-    Resource defaultResource = mapper.treeToValue(defaultTree, resourceType);
-    ArrayNode alternativesArray = (ArrayNode) tree.get("item");
-    for (JsonNode subNode : alternativesArray) {
-      defaultResource.addAlternative(mapper.treeToValue(subNode, resourceType));
+      String containingField,
+      JsonStreamContext fieldContext,
+      JsonParser p,
+      DeserializationContext ctxt)
+      throws IOException {
+    JsonToken t = p.getCurrentToken();
+    if (t == JsonToken.START_OBJECT) {
+      t = p.nextToken();
+    }
+    Resource defaultResource = null;
+    TokenBuffer alternatives = null;
+    for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+      String fieldName = p.currentName();
+      p.nextToken();
+      if ("default".equals(fieldName) && p.hasToken(JsonToken.START_OBJECT)) {
+        defaultResource = parseObject(containingField, fieldContext, p, ctxt);
+      } else if ("item".equals(fieldName)) {
+        if (defaultResource != null) {
+          parseAlternatives(defaultResource, p, ctxt);
+        } else {
+          // We need the type of the default resource first
+          alternatives = new TokenBuffer(p, ctxt);
+          alternatives.copyCurrentStructure(p);
+        }
+      } else {
+        p.skipChildren();
+      }
+    }
+    if (defaultResource == null) {
+      return ctxt.reportInputMismatch(
+          Resource.class, "oa:Choice needs a 'default' object to determine the resource type.");
+    }
+    if (alternatives != null) {
+      parseAlternatives(defaultResource, alternatives.asParserOnFirstToken(), ctxt);
     }
     return defaultResource;
   }
 
-  private String getMissingType(DeserializationContext ctxt, String containingField) {
+  /** Parse the alternatives of a Choice, which all have the type of its default resource. */
+  private void parseAlternatives(
+      Resource defaultResource, JsonParser p, DeserializationContext ctxt) throws IOException {
+    Class<? extends Resource> resourceType = defaultResource.getClass();
+    DeserializationContext parserCtxt = StreamingDispatch.contextFor(p, ctxt);
+    if (p.hasToken(JsonToken.START_ARRAY)) {
+      while (p.nextToken() != JsonToken.END_ARRAY) {
+        defaultResource.addAlternative(parserCtxt.readValue(p, resourceType));
+      }
+    } else {
+      defaultResource.addAlternative(parserCtxt.readValue(p, resourceType));
+    }
+  }
+
+  private String getMissingType(JsonStreamContext fieldContext, String containingField) {
+    if (containingField == null) {
+      return null;
+    }
     switch (containingField) {
       case "on":
-        return getOnType(ctxt);
+        return getOnType(fieldContext);
       case "within":
-        return getWithinType(ctxt);
+        return getWithinType(fieldContext);
       case "canvases":
         return "sc:Canvas";
       case "thumbnail":
@@ -114,8 +218,8 @@ public class ResourceDeserializer extends JsonDeserializer<Resource> {
     }
   }
 
-  private String getWithinType(DeserializationContext ctxt) {
-    Resource obj = (Resource) ctxt.getParser().getCurrentValue();
+  private String getWithinType(JsonStreamContext fieldContext) {
+    Object obj = fieldContext.getCurrentValue();
     if (obj instanceof Manifest || obj instanceof Collection) {
       return "sc:Collection";
     } else if (obj instanceof AnnotationList) {
@@ -126,12 +230,12 @@ public class ResourceDeserializer extends JsonDeserializer<Resource> {
   }
 
   /** Get type for "on" values that are plain URIs by deducing the type from their parent. */
-  private String getOnType(DeserializationContext ctxt) {
+  private String getOnType(JsonStreamContext fieldContext) {
     // Easiest way: The parser has already constructed an annotation object with a motivation.
     // This is highly dependendant on the order of keys in the JSON, i.e. if "on" is the first key
     // in the annotation
     // object, this won't work.
-    Object curVal = ctxt.getParser().getCurrentValue();
+    Object curVal = fieldContext.getCurrentValue();
     boolean isPaintingAnno =
         (curVal != null
             && curVal instanceof Annotation
@@ -143,7 +247,7 @@ public class ResourceDeserializer extends JsonDeserializer<Resource> {
     // More reliable way: Walk up the parsing context until we hit a IIIF resource that we can
     // deduce the type from
     // Usually this shouldn't be more than two levels up
-    JsonStreamContext parent = ctxt.getParser().getParsingContext().getParent();
+    JsonStreamContext parent = fieldContext.getParent();
     while (parent != null
         && (parent.getCurrentValue() == null || !(parent.getCurrentValue() instanceof Resource))) {
       parent = parent.getParent();
@@ -164,8 +268,7 @@ public class ResourceDeserializer extends JsonDeserializer<Resource> {
     }
   }
 
-  private static String getContainingField(JsonParser parser) {
-    final JsonStreamContext ctx = parser.getParsingContext();
+  private static String getContainingField(JsonStreamContext ctx) {
     if (ctx.inArray()) {
       return ctx.getParent().getCurrentName();
     } else {
@@ -2,46 +2,122 @@ package de.digitalcollections.iiif.model.jackson.serialization;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.BeanProperty;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
-import com.google.common.collect.ImmutableSet;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.google.common.collect.ImmutableMap;
+import de.digitalcollections.iiif.model.CompletenessPlan;
 import de.digitalcollections.iiif.model.ImageContent;
-import de.digitalcollections.iiif.model.ModelUtilities;
 import de.digitalcollections.iiif.model.ModelUtilities.Completeness;
 import de.digitalcollections.iiif.model.Motivation;
+import de.digitalcollections.iiif.model.jackson.FragmentCache;
+import de.digitalcollections.iiif.model.jackson.LazyValueAccess;
 import de.digitalcollections.iiif.model.openannotation.Annotation;
 import de.digitalcollections.iiif.model.sharedcanvas.Canvas;
 import de.digitalcollections.iiif.model.sharedcanvas.Resource;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
-public class ResourceSerializer extends JsonSerializer<Resource> {
+/**
+ * Serializes resources in their most compact form, e.g. as a plain string if only the identifier is
+ * needed in a given field.
+ *
+ * <p>The rules depend on the field the resource is serialized in. They are looked up once per
+ * property when the serializer is contextualized, and only looked up during serialization if the
+ * field is not known in advance (e.g. for top-level values).
+ */
+public class ResourceSerializer extends JsonSerializer<Resource> implements ContextualSerializer {
+
+  /** Serialization attribute that holds the top-level resource of the current serialization. */
+  private static final Object TOP_LEVEL_RESOURCE = new Object();
+
+  /** Special serialization rules, depending on the field a resource is contained in. */
+  private enum FieldRule {
+    /** Images don't need a `@type`, since it is implied by the specification. */
+    IMPLICIT_IMAGE,
+    /** The `@type` is redundant, since it's clear we have canvases from the field name. */
+    CANVASES,
+    /** The `@type` is redundant if it matches the convention for the parent's type. */
+    WITHIN,
+    /** The `@type` is redundant for the canvas of a painting annotation. */
+    ON,
+    /** Only the identifier is needed. */
+    NAVIGATION,
+    /** The `@type` is redundant if there is nothing but the identifier and type. */
+    REFERENCE,
+    /** Only the identifier is needed within layers. */
+    OTHER_CONTENT,
+    NONE
+  }
+
+  private static final ImmutableMap<String, FieldRule> FIELD_RULES =
+      new ImmutableMap.Builder<String, FieldRule>()
+          .put("thumbnail", FieldRule.IMPLICIT_IMAGE)
+          .put("logo", FieldRule.IMPLICIT_IMAGE)
+          .put("canvases", FieldRule.CANVASES)
+          .put("within", FieldRule.WITHIN)
+          .put("on", FieldRule.ON)
+          .put("prev", FieldRule.NAVIGATION)
+          .put("next", FieldRule.NAVIGATION)
+          .put("first", FieldRule.NAVIGATION)
+          .put("last", FieldRule.NAVIGATION)
+          .put("contentLayer", FieldRule.REFERENCE)
+          .put("ranges", FieldRule.REFERENCE)
+          .put("annotations", FieldRule.REFERENCE)
+          .put("otherContent", FieldRule.OTHER_CONTENT)
+          .build();
 
   private final JsonSerializer<Object> defaultSerializer;
 
+  /** Rule for the field this serializer is used for, or null if it has to be looked up. */
+  private final FieldRule fieldRule;
+
   public ResourceSerializer(JsonSerializer<Object> defaultSerializer) {
+    this(defaultSerializer, null);
+  }
+
+  private ResourceSerializer(JsonSerializer<Object> defaultSerializer, FieldRule fieldRule) {
     this.defaultSerializer = defaultSerializer;
+    this.fieldRule = fieldRule;
+  }
+
+  @Override
+  public JsonSerializer<?> createContextual(SerializerProvider prov, BeanProperty property) {
+    String field = getPropertyField(property);
+    if (field == null) {
+      return this;
+    }
+    return new ResourceSerializer(defaultSerializer, getFieldRule(field));
   }
 
   @Override
   public void serialize(Resource value, JsonGenerator gen, SerializerProvider serializers)
       throws IOException {
-    // Add @context to top-level object
+    // Remember the top-level object, it gets an @context (see ContextPropertyWriter). This is
+    // tracked per serialization and not on the value, so the value can be shared between threads.
     if (gen.getOutputContext().getParent() == null) {
-      value._context = Resource.CONTEXT;
+      serializers.setAttribute(TOP_LEVEL_RESOURCE, value);
+    } else if (FragmentCache.isInUse()
+        && !isTopLevel(value, serializers)
+        && FragmentCache.writeCached(value, gen, serializers, this::serializeResource)) {
+      return;
     }
+    serializeResource(value, gen, serializers);
+  }
 
+  private void serializeResource(Resource value, JsonGenerator gen, SerializerProvider serializers)
+      throws IOException {
     if (value.getAlternatives() != null && !value.getAlternatives().isEmpty()) {
       gen.writeStartObject();
       gen.writeStringField("@type", "oa:Choice");
       gen.writeFieldName("default");
-      List<Resource> alternatives = value.getAlternatives();
-      value.setAlternatives(null);
+      // The alternatives themselves are not serialized by the default serializer
       defaultSerializer.serialize(value, gen, serializers);
       gen.writeArrayFieldStart("item");
-      for (Resource alt : alternatives) {
+      for (Resource alt : (List<Resource>) value.getAlternatives()) {
         defaultSerializer.serialize(alt, gen, serializers);
       }
       gen.writeEndArray();
@@ -49,65 +125,19 @@ public class ResourceSerializer extends JsonSerializer<Resource> {
       return;
     }
 
-    // Remove @type from ImageContent if necessary
-    String containingField = getContainingField(gen);
-    String typeBackup = null;
-    if (ImmutableSet.of("thumbnail", "logo").contains(containingField)) {
-      ImageContent imgContent = (ImageContent) value;
-      typeBackup = imgContent._type;
-      imgContent._type = null;
+    FieldRule rule = fieldRule;
+    if (rule == null) {
+      rule = getFieldRule(getContainingField(gen.getOutputContext()));
     }
-
-    String parentType = null;
-    if (gen.getCurrentValue() != null) {
-      Object parent = gen.getCurrentValue();
-      if (parent instanceof Resource) {
-        parentType = ((Resource) parent).getType();
-      }
-    } else if (gen.getOutputContext() != null && gen.getOutputContext().getParent() != null) {
-      Object parent = gen.getOutputContext().getParent().getCurrentValue();
-      if (parent instanceof Resource) {
-        parentType = ((Resource) parent).getType();
-      }
-    }
-
-    Completeness completeness = ModelUtilities.getCompleteness(value, value.getClass());
-    if (Objects.equals(containingField, "canvases")
-        && completeness == ModelUtilities.Completeness.ID_AND_TYPE) {
-      // It's redundant to specify the @type here, since it's clear we have canvases from the field
-      // name
-      completeness = ModelUtilities.Completeness.ID_ONLY;
-    }
-    if (Objects.equals(containingField, "within")
-        && completeness == ModelUtilities.Completeness.ID_AND_TYPE) {
-      // It's also redundant in these cases, since the specification prescribes a convention
-      String withinType = value.getType();
-      boolean skipType =
-          (("sc:Manifest".equals(parentType) && "sc:Collection".equals(withinType))
-              || ("sc:AnnotationList".equals(parentType) && "sc:Layer".equals(withinType))
-              || ("sc:Collection".equals(parentType) && "sc:Collection".equals(withinType)));
-      if (skipType) {
-        completeness = ModelUtilities.Completeness.ID_ONLY;
-      }
-    } else if (Objects.equals(containingField, "on")
-        && completeness == ModelUtilities.Completeness.ID_AND_TYPE) {
-      boolean skipType =
-          (value instanceof Canvas
-              && gen.getCurrentValue() instanceof Annotation
-              && Objects.equals(
-                  ((Annotation) gen.getCurrentValue()).getMotivation(), Motivation.PAINTING));
-      if (skipType) {
-        completeness = ModelUtilities.Completeness.ID_ONLY;
-      }
-    } else {
-      ImmutableSet<String> skipParents = ImmutableSet.of("contentLayer", "ranges", "annotations");
-      boolean shouldSkip =
-          (Arrays.asList("prev", "next", "first", "last").contains(containingField)
-              || (completeness == Completeness.ID_AND_TYPE && skipParents.contains(containingField))
-              || ("otherContent".equals(containingField) && "sc:Layer".equals(parentType)));
-      if (shouldSkip) {
-        completeness = Completeness.ID_ONLY;
-      }
+    // ImageContent omits its @type if necessary (see ImageTypePropertyWriter)
+    boolean includeType = !(rule == FieldRule.IMPLICIT_IMAGE && value instanceof ImageContent);
+    // Unbound lazy properties always have a value, checking the getters would bind them
+    Completeness completeness =
+        LazyValueAccess.hasAny(value)
+            ? Completeness.COMPLEX
+            : CompletenessPlan.forType(value.getClass()).evaluate(value, includeType);
+    if (isIdSufficient(rule, completeness, value, gen)) {
+      completeness = Completeness.ID_ONLY;
     }
     switch (completeness) {
       case EMPTY:
@@ -122,15 +152,83 @@ public class ResourceSerializer extends JsonSerializer<Resource> {
         // Otherwise delegate to default serializer
         defaultSerializer.serialize(value, gen, serializers);
     }
+  }
+
+  /** Check if the identifier is sufficient to represent the resource in its field. */
+  private static boolean isIdSufficient(
+      FieldRule rule, Completeness completeness, Resource value, JsonGenerator gen) {
+    switch (rule) {
+      case NAVIGATION:
+        return true;
+      case OTHER_CONTENT:
+        return "sc:Layer".equals(getParentType(gen));
+      default:
+        break;
+    }
+    if (completeness != Completeness.ID_AND_TYPE) {
+      return false;
+    }
+    switch (rule) {
+      case CANVASES:
+      case REFERENCE:
+        return true;
+      case WITHIN:
+        // It's redundant in these cases, since the specification prescribes a convention
+        String parentType = getParentType(gen);
+        String withinType = value.getType();
+        return ("sc:Manifest".equals(parentType) && "sc:Collection".equals(withinType))
+            || ("sc:AnnotationList".equals(parentType) && "sc:Layer".equals(withinType))
+            || ("sc:Collection".equals(parentType) && "sc:Collection".equals(withinType));
+      case ON:
+        return value instanceof Canvas
+            && gen.getCurrentValue() instanceof Annotation
+            && Objects.equals(
+                ((Annotation) gen.getCurrentValue()).getMotivation(), Motivation.PAINTING);
+      default:
+        return false;
+    }
+  }
+
+  private static String getParentType(JsonGenerator gen) {
+    Object parent = gen.getCurrentValue();
+    if (parent == null && gen.getOutputContext().getParent() != null) {
+      parent = gen.getOutputContext().getParent().getCurrentValue();
+    }
+    if (parent instanceof Resource) {
+      return ((Resource) parent).getType();
+    }
+    return null;
+  }
+
+  private static FieldRule getFieldRule(String containingField) {
+    if (containingField == null) {
+      return FieldRule.NONE;
+    }
+    return FIELD_RULES.getOrDefault(containingField, FieldRule.NONE);
+  }
+
+  static boolean isTopLevel(Object value, SerializerProvider serializers) {
+    return serializers.getAttribute(TOP_LEVEL_RESOURCE) == value;
+  }
+
+  static boolean isImplicitImageField(String containingField) {
+    return getFieldRule(containingField) == FieldRule.IMPLICIT_IMAGE;
+  }
 
-    // Set the type back on the value if it was removed
-    if (typeBackup != null) {
-      ((ImageContent) value)._type = typeBackup;
+  /**
+   * Get the field that the values of a property are serialized in.
+   *
+   * <p>Returns null if the field can only be determined during serialization. This is the case for
+   * top-level values and the values of maps and any-getters, where the containing field is the key.
+   */
+  static String getPropertyField(BeanProperty property) {
+    if (!(property instanceof BeanPropertyWriter) || property.getType().isMapLikeType()) {
+      return null;
     }
+    return property.getName();
   }
 
-  private static String getContainingField(JsonGenerator gen) {
-    JsonStreamContext ctx = gen.getOutputContext();
+  static String getContainingField(JsonStreamContext ctx) {
     if (ctx.inArray()) {
       return ctx.getParent().getCurrentName();
     } else {
@@ -1,19 +1,19 @@
 package de.digitalcollections.iiif.model.jackson.serialization;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.google.common.collect.ImmutableMap;
 import de.digitalcollections.iiif.model.image.ImageApiSelector;
 import de.digitalcollections.iiif.model.interfaces.Selector;
+import de.digitalcollections.iiif.model.openannotation.ContentAsText;
 import de.digitalcollections.iiif.model.openannotation.SvgSelector;
 import de.digitalcollections.iiif.model.search.TextQuoteSelector;
 import java.io.IOException;
 import java.util.Map;
-import java.util.stream.StreamSupport;
 
 public class SelectorDeserializer extends JsonDeserializer<Selector> {
 
@@ -25,26 +25,55 @@ public class SelectorDeserializer extends JsonDeserializer<Selector> {
           .build();
 
   public Selector deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
-    ObjectMapper mapper = (ObjectMapper) p.getCodec();
-    ObjectNode obj = mapper.readTree(p);
-    String typeName;
-    if (obj.get("@type").isArray()) {
-      // Find the actual selector type
-      typeName =
-          StreamSupport.stream(obj.get("@type").spliterator(), false)
-              .filter(v -> !v.textValue().equals("cnt:ContentAsText"))
-              .findFirst()
-              .orElse(new TextNode("UNKNOWN"))
-              .textValue();
-      // Make @type a text value so that Jackson doesn't bail out further down the line
-      obj.set("@type", new TextNode(typeName));
-    } else {
-      typeName = obj.get("@type").textValue();
+    JsonToken t = p.getCurrentToken();
+    if (t == JsonToken.START_OBJECT) {
+      t = p.nextToken();
     }
-    if (MAPPING.containsKey(typeName)) {
-      return mapper.treeToValue(obj, MAPPING.get(typeName));
-    } else {
+    JsonStreamContext parentContext = p.getParsingContext().getParent();
+
+    // Buffer everything up to the @type, which is not passed on since all selectors know their type
+    TokenBuffer prefix = null;
+    String typeName = null;
+    for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+      String fieldName = p.currentName();
+      p.nextToken();
+      if ("@type".equals(fieldName)) {
+        typeName = readTypeName(p);
+        break;
+      }
+      if (prefix == null) {
+        prefix = StreamingDispatch.startObject(p, ctxt);
+      }
+      prefix.writeFieldName(fieldName);
+      prefix.copyCurrentStructure(p);
+    }
+    if (typeName == null || !MAPPING.containsKey(typeName)) {
       throw new IllegalArgumentException("Cannot deserialize Selector.");
     }
+
+    JsonParser objectParser;
+    if (prefix == null) {
+      p.nextToken();
+      objectParser = p;
+    } else {
+      objectParser = StreamingDispatch.prefixed(prefix, p);
+    }
+    return StreamingDispatch.readKeepingParent(
+        objectParser, MAPPING.get(typeName), ctxt, parentContext);
+  }
+
+  private static String readTypeName(JsonParser p) throws IOException {
+    if (!p.hasToken(JsonToken.START_ARRAY)) {
+      return p.getValueAsString();
+    }
+    // Find the actual selector type
+    String typeName = "UNKNOWN";
+    while (p.nextToken() != JsonToken.END_ARRAY) {
+      String value = p.getValueAsString();
+      if (typeName.equals("UNKNOWN") && value != null && !value.equals(ContentAsText.TYPE)) {
+        typeName = value;
+      }
+    }
+    return typeName;
   }
 }
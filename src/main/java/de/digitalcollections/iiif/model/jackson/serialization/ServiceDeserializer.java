@@ -1,12 +1,14 @@
 package de.digitalcollections.iiif.model.jackson.serialization;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.google.common.collect.ImmutableMap;
 import de.digitalcollections.iiif.model.GenericService;
 import de.digitalcollections.iiif.model.Service;
 import de.digitalcollections.iiif.model.annex.GeoService;
@@ -20,132 +22,238 @@ import de.digitalcollections.iiif.model.search.AutocompleteService;
 import de.digitalcollections.iiif.model.search.ContentSearchService;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 /**
  * Custom deserializer for services.
  *
  * <p>Necessary since the type dispatching is not uniform for services, sometimes we can decide by
  * looking at @context, but other times we need to look at the profile or both.
+ *
+ * <p>Only the fields up to @context and profile are buffered, the rest of the service is bound
+ * directly from the parser without building a tree first.
  */
 public class ServiceDeserializer extends JsonDeserializer<Service> {
 
+  private static final ImmutableMap<String, Class<? extends Service>> CONTEXT_MAPPING =
+      new ImmutableMap.Builder<String, Class<? extends Service>>()
+          .put(ImageService.CONTEXT, ImageService.class)
+          .put(ContentSearchService.CONTEXT, ContentSearchService.class)
+          .put(AccessCookieService.CONTEXT, AccessCookieService.class)
+          .put(GeoService.CONTEXT, GeoService.class)
+          .put(PhysicalDimensionsService.CONTEXT, PhysicalDimensionsService.class)
+          .build();
+
   @Override
   public Service deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
-    ObjectMapper mapper = (ObjectMapper) p.getCodec();
     if (p.getCurrentToken() == JsonToken.VALUE_STRING) {
       return new GenericService(null, p.getValueAsString());
+    } else if (!p.hasToken(JsonToken.START_OBJECT) && !p.hasToken(JsonToken.FIELD_NAME)) {
+      return (Service) ctxt.handleUnexpectedToken(Service.class, p);
     }
-    ObjectNode obj = mapper.readTree(p);
-    if (isV1ImageService(obj)) {
-      return parseV1Service(obj);
-    } else if (isImageService(obj)) {
-      return mapper.treeToValue(obj, ImageService.class);
-    }
+    return parseObject(p.getParsingContext().getParent(), p, ctxt);
+  }
 
-    String context = null;
-    if (obj.has("@context")) {
-      context = obj.get("@context").asText();
+  private Service parseObject(
+      JsonStreamContext parentContext, JsonParser p, DeserializationContext ctxt)
+      throws IOException {
+    JsonToken t = p.getCurrentToken();
+    if (t == JsonToken.START_OBJECT) {
+      t = p.nextToken();
     }
-    JsonNode profileNode = obj.get("profile");
+    // Buffer everything until we know both the @context and the profile, the services bind both of
+    // them too, so they are buffered as well
+    TokenBuffer prefix = null;
+    String context = null;
     String profile = null;
-    if (profileNode != null) {
-      profile = profileNode.asText();
-    }
-    if (Objects.equals(context, ContentSearchService.CONTEXT)) {
-      if (Objects.equals(profile, AutocompleteService.PROFILE)) {
-        return mapper.treeToValue(obj, AutocompleteService.class);
-      } else {
-        return mapper.treeToValue(obj, ContentSearchService.class);
+    String conformsTo = null;
+    while (t == JsonToken.FIELD_NAME) {
+      String fieldName = p.currentName();
+      p.nextToken();
+      if ("@context".equals(fieldName)) {
+        context = getScalarText(p);
+      } else if ("profile".equals(fieldName)) {
+        profile = getScalarText(p);
+      } else if ("dcterms:conformsTo".equals(fieldName)) {
+        conformsTo = getScalarText(p);
+      }
+      if (prefix == null) {
+        prefix = StreamingDispatch.startObject(p, ctxt);
+      }
+      prefix.writeFieldName(fieldName);
+      prefix.copyCurrentStructure(p);
+      if (context != null && profile != null) {
+        break;
       }
-    } else if (Objects.equals(context, AccessCookieService.CONTEXT)) {
-      return mapper.treeToValue(obj, AccessCookieService.class);
-    } else if (Objects.equals(context, GeoService.CONTEXT)) {
-      return mapper.treeToValue(obj, GeoService.class);
-    } else if (Objects.equals(context, PhysicalDimensionsService.CONTEXT)) {
-      return mapper.treeToValue(obj, PhysicalDimensionsService.class);
+      t = p.nextToken();
+    }
+
+    JsonParser objectParser;
+    if (prefix == null) {
+      // Empty object, nothing to replay
+      objectParser = p;
+    } else if (t == JsonToken.END_OBJECT) {
+      prefix.writeEndObject();
+      objectParser = prefix.asParserOnFirstToken();
     } else {
-      return mapper.treeToValue(obj, GenericService.class);
+      objectParser = StreamingDispatch.prefixed(prefix, p);
+    }
+    if (isV1ImageService(profile, conformsTo)) {
+      return parseV1Service(objectParser);
     }
+    return StreamingDispatch.readKeepingParent(
+        objectParser, getServiceType(context, profile), ctxt, parentContext);
   }
 
-  private ImageService parseV1Service(ObjectNode obj) {
-    ImageService service = new ImageService(obj.get("@id").asText());
-    if (obj.has("@context")) {
-      service.setContext(URI.create(obj.get("@context").asText()));
+  private static Class<? extends Service> getServiceType(String context, String profile) {
+    Class<? extends Service> type = CONTEXT_MAPPING.getOrDefault(context, GenericService.class);
+    if (type == ContentSearchService.class && AutocompleteService.PROFILE.equals(profile)) {
+      return AutocompleteService.class;
     }
-    if (obj.has("profile")) {
-      service.addProfile(ImageApiProfile.fromUrl(obj.get("profile").asText()));
-    } else if (obj.has("dcterms:conformsTo")) {
-      service.addProfile(ImageApiProfile.fromUrl(obj.get("dcterms:conformsTo").asText()));
+    return type;
+  }
+
+  /** Get the text of a scalar value, or an empty string for objects and arrays. */
+  private static String getScalarText(JsonParser p) throws IOException {
+    return p.getCurrentToken().isScalarValue() ? p.getText() : "";
+  }
+
+  private ImageService parseV1Service(JsonParser p) throws IOException {
+    String identifier = null;
+    String context = null;
+    String profile = null;
+    String conformsTo = null;
+    Integer width = null;
+    Integer height = null;
+    Integer tileWidth = null;
+    Integer tileHeight = null;
+    List<Integer> scaleFactors = null;
+    List<String> formats = null;
+    List<String> qualities = null;
+    for (JsonToken t = p.nextToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+      String fieldName = p.currentName();
+      p.nextToken();
+      switch (fieldName) {
+        case "@id":
+          identifier = p.getValueAsString();
+          break;
+        case "@context":
+          context = p.getValueAsString();
+          break;
+        case "profile":
+          profile = p.getValueAsString();
+          break;
+        case "dcterms:conformsTo":
+          conformsTo = p.getValueAsString();
+          break;
+        case "width":
+          width = p.getValueAsInt();
+          break;
+        case "height":
+          height = p.getValueAsInt();
+          break;
+        case "tile_width":
+          tileWidth = p.getValueAsInt();
+          break;
+        case "tile_height":
+          tileHeight = p.getValueAsInt();
+          break;
+        case "scale_factors":
+          scaleFactors = new ArrayList<>();
+          while (p.nextToken() != JsonToken.END_ARRAY) {
+            scaleFactors.add(p.getValueAsInt());
+          }
+          break;
+        case "formats":
+          formats = readStrings(p);
+          break;
+        case "qualities":
+          qualities = readStrings(p);
+          break;
+        default:
+          p.skipChildren();
+      }
     }
-    if (obj.has("width")) {
-      service.setWidth(obj.get("width").asInt());
+
+    ImageService service = new ImageService(identifier);
+    if (context != null) {
+      service.setContext(URI.create(context));
     }
-    if (obj.has("height")) {
-      service.setHeight(obj.get("height").asInt());
+    if (profile != null) {
+      service.addProfile(ImageApiProfile.fromUrl(profile));
+    } else if (conformsTo != null) {
+      service.addProfile(ImageApiProfile.fromUrl(conformsTo));
     }
-    if (obj.has("scale_factors") && (service.getWidth() != null && service.getHeight() != null)) {
-      obj.withArray("scale_factors")
-          .forEach(
-              fnode ->
-                  service.addSize(
-                      new Size(
-                          service.getWidth() / fnode.asInt(),
-                          service.getHeight() / fnode.asInt())));
+    service.setWidth(width);
+    service.setHeight(height);
+    if (scaleFactors != null && width != null && height != null) {
+      for (int factor : scaleFactors) {
+        service.addSize(new Size(width / factor, height / factor));
+      }
     }
-    if (obj.has("tile_width") && obj.has("scale_factors")) {
-      TileInfo tinfo = new TileInfo(obj.get("tile_width").asInt());
-      obj.withArray("scale_factors").forEach(fnode -> tinfo.addScaleFactor(fnode.asInt()));
-      if (obj.has("tile_height")) {
-        tinfo.setHeight(obj.get("tile_height").intValue());
+    if (tileWidth != null && scaleFactors != null) {
+      TileInfo tinfo = new TileInfo(tileWidth);
+      scaleFactors.forEach(tinfo::addScaleFactor);
+      if (tileHeight != null) {
+        tinfo.setHeight(tileHeight);
       }
       service.addTile(tinfo);
     }
-    if (obj.has("formats") || obj.has("qualities")) {
-      ImageApiProfile profile = new ImageApiProfile();
-      if (obj.has("formats")) {
-        obj.withArray("formats")
-            .forEach(
-                f -> profile.addFormat(ImageApiProfile.Format.valueOf(f.asText().toUpperCase())));
+    if (formats != null || qualities != null) {
+      ImageApiProfile imageProfile = new ImageApiProfile();
+      if (formats != null) {
+        formats.forEach(
+            f -> imageProfile.addFormat(ImageApiProfile.Format.valueOf(f.toUpperCase())));
       }
-      if (obj.has("qualities")) {
-        List<String> qualities =
-            StreamSupport.stream(obj.withArray("qualities").spliterator(), false)
-                .map(q -> q.asText().equals("native") ? "default" : q.asText())
-                .map(q -> q.equals("grey") ? "gray" : q)
-                .collect(Collectors.toList());
-        qualities.forEach(
-            q -> profile.addQuality(ImageApiProfile.Quality.valueOf(q.toUpperCase())));
+      if (qualities != null) {
+        for (String quality : qualities) {
+          if (quality.equals("native")) {
+            quality = "default";
+          } else if (quality.equals("grey")) {
+            quality = "gray";
+          }
+          imageProfile.addQuality(ImageApiProfile.Quality.valueOf(quality.toUpperCase()));
+        }
       }
-      service.addProfile(profile);
+      service.addProfile(imageProfile);
     }
     return service;
   }
 
-  private boolean isV1ImageService(ObjectNode node) {
-    String profile;
-    if (node.has("profile")) {
-      profile = node.get("profile").asText();
-    } else if (node.has("dcterms:conformsTo")) {
-      profile = node.get("dcterms:conformsTo").asText();
-      profile = profile.replace("conformance", "compliance");
+  private static List<String> readStrings(JsonParser p) throws IOException {
+    List<String> values = new ArrayList<>();
+    while (p.nextToken() != JsonToken.END_ARRAY) {
+      values.add(p.getValueAsString());
+    }
+    return values;
+  }
+
+  private boolean isV1ImageService(String profile, String conformsTo) {
+    if (profile != null) {
+      return ImageApiProfile.V1_PROFILES.contains(profile);
+    } else if (conformsTo != null) {
+      return ImageApiProfile.V1_PROFILES.contains(conformsTo.replace("conformance", "compliance"));
     } else {
       return false;
     }
-    return ImageApiProfile.V1_PROFILES.contains(profile);
   }
 
+  /**
+   * Check if a service read into a tree is an image service.
+   *
+   * @param node the service
+   * @return whether the service has the image context or an Image API 1.x profile
+   * @deprecated services are dispatched while they are read, without reading them into a tree
+   */
+  @Deprecated
   public boolean isImageService(ObjectNode node) {
     JsonNode ctxNode = node.get("@context");
     JsonNode profileNode = node.get("profile");
-    if (ctxNode != null && ImageService.CONTEXT.equals(ctxNode.textValue())) {
+    if (ctxNode != null && CONTEXT_MAPPING.get(ctxNode.textValue()) == ImageService.class) {
       return true;
     } else if (profileNode != null) {
-      return ImageApiProfile.V1_PROFILES.contains(profileNode.asText());
+      return isV1ImageService(profileNode.asText(), null);
     } else {
       return false;
     }
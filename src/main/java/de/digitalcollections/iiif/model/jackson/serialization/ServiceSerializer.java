@@ -0,0 +1,76 @@
+package de.digitalcollections.iiif.model.jackson.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import de.digitalcollections.iiif.model.Service;
+import de.digitalcollections.iiif.model.jackson.FragmentCache;
+import java.io.IOException;
+
+/**
+ * Writes registered services from the {@link FragmentCache}, everything else is done by the default
+ * serializer.
+ */
+public class ServiceSerializer extends JsonSerializer<Service>
+    implements ContextualSerializer, ResolvableSerializer {
+
+  private final JsonSerializer<Object> defaultSerializer;
+
+  public ServiceSerializer(JsonSerializer<Object> defaultSerializer) {
+    this.defaultSerializer = defaultSerializer;
+  }
+
+  @Override
+  public void resolve(SerializerProvider provider) throws JsonMappingException {
+    if (defaultSerializer instanceof ResolvableSerializer) {
+      ((ResolvableSerializer) defaultSerializer).resolve(provider);
+    }
+  }
+
+  @Override
+  public JsonSerializer<?> createContextual(SerializerProvider prov, BeanProperty property)
+      throws JsonMappingException {
+    JsonSerializer<?> contextual =
+        prov.handleSecondaryContextualization(defaultSerializer, property);
+    if (contextual == defaultSerializer) {
+      return this;
+    }
+    return new ServiceSerializer((JsonSerializer<Object>) contextual);
+  }
+
+  @Override
+  public void serialize(Service value, JsonGenerator gen, SerializerProvider serializers)
+      throws IOException {
+    if (!FragmentCache.isInUse()
+        || !FragmentCache.writeCached(value, gen, serializers, defaultSerializer::serialize)) {
+      defaultSerializer.serialize(value, gen, serializers);
+    }
+  }
+
+  @Override
+  public void serializeWithType(
+      Service value, JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+      throws IOException {
+    defaultSerializer.serializeWithType(value, gen, serializers, typeSer);
+  }
+
+  @Override
+  public boolean isEmpty(SerializerProvider provider, Service value) {
+    return defaultSerializer.isEmpty(provider, value);
+  }
+
+  @Override
+  public boolean usesObjectId() {
+    return defaultSerializer.usesObjectId();
+  }
+
+  @Override
+  public Class<Service> handledType() {
+    return Service.class;
+  }
+}
@@ -0,0 +1,149 @@
+package de.digitalcollections.iiif.model.jackson.serialization;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+
+/**
+ * Helpers for deserializers that need to look ahead for a discriminating field (e.g. `@type`)
+ * before they can pick the class to bind to.
+ *
+ * <p>Instead of reading the whole object into a tree, only the fields before the discriminator are
+ * buffered. The buffered fields are then replayed in front of the remaining fields, which are read
+ * straight from the source parser.
+ */
+final class StreamingDispatch {
+
+  private StreamingDispatch() {}
+
+  /**
+   * Start buffering an object.
+   *
+   * @param p the parser the object is read from
+   * @param ctxt the current deserialization context
+   * @return a buffer that already contains the START_OBJECT token
+   * @throws IOException if the buffer could not be written to
+   */
+  static TokenBuffer startObject(JsonParser p, DeserializationContext ctxt) throws IOException {
+    TokenBuffer buffer = new TokenBuffer(p, ctxt);
+    buffer.writeStartObject();
+    return buffer;
+  }
+
+  /**
+   * Create a parser that first replays the buffered beginning of an object and then continues with
+   * the rest of the object from the source parser.
+   *
+   * @param prefix buffer with the beginning of an object, must start with the START_OBJECT token
+   *     and must not contain the matching END_OBJECT token
+   * @param source parser positioned on the last token of the object that was consumed so far
+   * @return parser positioned on the START_OBJECT token of the buffered object
+   * @throws IOException if the buffer could not be read
+   */
+  static JsonParser prefixed(TokenBuffer prefix, JsonParser source) throws IOException {
+    return new PrefixedParser(prefix.asParserOnFirstToken(), source);
+  }
+
+  /**
+   * Bind a value of the given type from the parser.
+   *
+   * @param <T> type of the value
+   * @param p parser positioned on the first token of the value
+   * @param type type of the value
+   * @param ctxt the current deserialization context
+   * @return the deserialized value
+   * @throws IOException if the value could not be deserialized
+   */
+  static <T> T readValue(JsonParser p, Class<T> type, DeserializationContext ctxt)
+      throws IOException {
+    return contextFor(p, ctxt).readValue(p, type);
+  }
+
+  /**
+   * Get a deserialization context for binding values from the parser.
+   *
+   * <p>Jackson and our {@link de.digitalcollections.iiif.model.jackson.ProblemHandler} read from
+   * the parser the context was created for, so if we bind from a different parser (e.g. one that
+   * replays buffered tokens), a dedicated context for that parser is needed. The current context is
+   * reused whenever it belongs to the parser. Callers binding several values from the same parser
+   * should get the context once and bind all values with it.
+   *
+   * @param p the parser values are bound from
+   * @param ctxt the current deserialization context
+   * @return a context for the parser
+   */
+  static DeserializationContext contextFor(JsonParser p, DeserializationContext ctxt) {
+    if (p == ctxt.getParser() || !(ctxt instanceof DefaultDeserializationContext)) {
+      return ctxt;
+    }
+    return ((DefaultDeserializationContext) ctxt)
+        .createInstance(ctxt.getConfig(), p, getInjectableValues(p.getCodec()));
+  }
+
+  /**
+   * Bind a value of the given type from the parser, without changing the current value of the
+   * context the value is in.
+   *
+   * <p>Bean deserializers may register their value after the closing brace has been consumed, i.e.
+   * on the parent context, which has to keep pointing to the parent object for its other fields.
+   *
+   * @param <T> type of the value
+   * @param p parser positioned on the first token of the value
+   * @param type type of the value
+   * @param ctxt the current deserialization context
+   * @param parentContext the context the value is in
+   * @return the deserialized value
+   * @throws IOException if the value could not be deserialized
+   */
+  static <T> T readKeepingParent(
+      JsonParser p, Class<T> type, DeserializationContext ctxt, JsonStreamContext parentContext)
+      throws IOException {
+    Object parentValue = parentContext.getCurrentValue();
+    T value = readValue(p, type, ctxt);
+    parentContext.setCurrentValue(parentValue);
+    return value;
+  }
+
+  private static InjectableValues getInjectableValues(ObjectCodec codec) {
+    if (codec instanceof ObjectMapper) {
+      return ((ObjectMapper) codec).getInjectableValues();
+    } else if (codec instanceof ObjectReader) {
+      return ((ObjectReader) codec).getInjectableValues();
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Since the object is started in the buffer, the deserialized bean would only be registered as
+   * the current value of the buffered object context. We mirror it to the source parser, so that
+   * deserializers for the fields after the discriminator can still find their parent object.
+   */
+  private static final class PrefixedParser extends JsonParserSequence {
+
+    private final JsonParser source;
+    private final JsonStreamContext prefixContext;
+
+    PrefixedParser(JsonParser prefix, JsonParser source) {
+      super(false, new JsonParser[] {prefix, source});
+      this.source = source;
+      this.prefixContext = prefix.getParsingContext();
+    }
+
+    @Override
+    public void assignCurrentValue(Object v) {
+      super.assignCurrentValue(v);
+      if (delegate != source && delegate.getParsingContext() == prefixContext) {
+        source.assignCurrentValue(v);
+      }
+    }
+  }
+}
@@ -2,6 +2,7 @@ package de.digitalcollections.iiif.model.search;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSetter;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.google.common.collect.Lists;
 import de.digitalcollections.iiif.model.sharedcanvas.AnnotationList;
@@ -31,6 +32,7 @@ public class SearchResult extends AnnotationList {
     return Arrays.asList(Resource.CONTEXT, CONTEXT);
   }
 
+  @JsonSetter("@context")
   private void setContext(List<String> contexts) {
     // NOP, is just here for jackson
   }
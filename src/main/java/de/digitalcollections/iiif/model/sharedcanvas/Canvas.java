@@ -129,15 +129,27 @@ public class Canvas extends Resource<Canvas> {
   }
 
   public List<AnnotationList> getOtherContent() {
+    bindLazyValue("otherContent");
     return otherContent;
   }
 
   public void setOtherContent(List<AnnotationList> otherContent) {
+    discardLazyValue("otherContent");
     this.otherContent = otherContent;
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  void setLazyProperty(String name, Object value) {
+    if ("otherContent".equals(name)) {
+      this.otherContent = (List<AnnotationList>) value;
+    } else {
+      super.setLazyProperty(name, value);
+    }
+  }
+
   public Canvas addOtherContent(AnnotationList first, AnnotationList... rest) {
-    if (this.otherContent == null) {
+    if (this.getOtherContent() == null) {
       this.otherContent = new ArrayList<>();
     }
     this.otherContent.addAll(Lists.asList(first, rest));
@@ -61,13 +61,25 @@ public class Layer extends Resource<Layer> implements PageContainer<AnnotationLi
   }
 
   public List<AnnotationList> getOtherContent() {
+    bindLazyValue("otherContent");
     return otherContent;
   }
 
   public void setOtherContent(List<AnnotationList> otherContent) {
+    discardLazyValue("otherContent");
     this.otherContent = otherContent;
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  void setLazyProperty(String name, Object value) {
+    if ("otherContent".equals(name)) {
+      this.otherContent = (List<AnnotationList>) value;
+    } else {
+      super.setLazyProperty(name, value);
+    }
+  }
+
   public Layer addOtherContent(String first, String... rest) {
     return this.addOtherContent(
         new AnnotationList(first),
@@ -75,7 +87,7 @@ public class Layer extends Resource<Layer> implements PageContainer<AnnotationLi
   }
 
   public Layer addOtherContent(AnnotationList first, AnnotationList... rest) {
-    if (this.otherContent == null) {
+    if (this.getOtherContent() == null) {
       this.otherContent = new ArrayList<>();
     }
     this.otherContent.addAll(Lists.asList(first, rest));
@@ -115,15 +115,27 @@ public class Manifest extends Resource<Manifest> {
   }
 
   public List<Range> getRanges() {
+    bindLazyValue("structures");
     return ranges;
   }
 
   public void setRanges(List<Range> ranges) {
+    discardLazyValue("structures");
     this.ranges = ranges;
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  void setLazyProperty(String name, Object value) {
+    if ("structures".equals(name)) {
+      this.ranges = (List<Range>) value;
+    } else {
+      super.setLazyProperty(name, value);
+    }
+  }
+
   public Manifest addRange(Range first, Range... rest) {
-    if (this.ranges == null) {
+    if (this.getRanges() == null) {
       this.ranges = new ArrayList<>();
     }
     this.ranges.addAll(Lists.asList(first, rest));
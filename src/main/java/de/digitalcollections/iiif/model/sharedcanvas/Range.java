@@ -7,7 +7,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
-import de.digitalcollections.iiif.model.ModelUtilities;
+import de.digitalcollections.iiif.model.CompletenessPlan;
 import de.digitalcollections.iiif.model.ModelUtilities.Completeness;
 import de.digitalcollections.iiif.model.enums.ViewingDirection;
 import de.digitalcollections.iiif.model.enums.ViewingHint.Type;
@@ -93,7 +93,7 @@ public class Range extends Resource<Range> {
   }
 
   private void checkIdOnly(Resource res) {
-    Completeness completeness = ModelUtilities.getCompleteness(res, res.getClass());
+    Completeness completeness = CompletenessPlan.forType(res.getClass()).evaluate(res);
     if (completeness != Completeness.ID_AND_TYPE && completeness != Completeness.ID_ONLY) {
       throw new IllegalArgumentException(
           "Member resource must only have an identifier and no other field."
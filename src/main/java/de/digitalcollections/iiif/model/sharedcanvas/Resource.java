@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonSetter;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import de.digitalcollections.iiif.model.ImageContent;
@@ -14,12 +15,16 @@ import de.digitalcollections.iiif.model.OtherContent;
 import de.digitalcollections.iiif.model.PropertyValue;
 import de.digitalcollections.iiif.model.Service;
 import de.digitalcollections.iiif.model.enums.ViewingHint;
+import de.digitalcollections.iiif.model.jackson.LazyValue;
+import de.digitalcollections.iiif.model.jackson.LazyValueAccess;
 import de.digitalcollections.iiif.model.jackson.SerializerModifier;
 import de.digitalcollections.iiif.model.openannotation.Choice;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -42,9 +47,10 @@ public abstract class Resource<T> implements Choice<T> {
   public static final String CONTEXT = "http://iiif.io/api/presentation/2/context.json";
 
   /**
-   * Only used during serialization,
+   * JSON-LD context, if it was set explicitly. The top-level resource gets the IIIF context during
+   * serialization without it being set here.
    *
-   * @see SerializerModifier *
+   * @see SerializerModifier
    */
   @SuppressWarnings("checkstyle:membername")
   @JsonProperty("@context")
@@ -61,6 +67,13 @@ public abstract class Resource<T> implements Choice<T> {
 
   @JsonIgnore private List<T> alternatives;
 
+  /**
+   * Properties that were captured during parsing, but were not bound yet. It is only modified under
+   * the lock of the resource and reset to null once all properties are bound, so resources that
+   * were not read lazily can be checked without locking.
+   */
+  @JsonIgnore private volatile Map<String, LazyValue> lazyValues;
+
   @JsonProperty("service")
   private List<Service> services;
 
@@ -93,6 +106,26 @@ public abstract class Resource<T> implements Choice<T> {
   @JsonProperty("within")
   private List<Resource> within;
 
+  static {
+    LazyValueAccess.setAccessor(
+        new LazyValueAccess.Accessor() {
+          @Override
+          public void set(Resource<?> resource, String name, LazyValue value) {
+            resource.setLazyValue(name, value);
+          }
+
+          @Override
+          public LazyValue get(Resource<?> resource, String name) {
+            return resource.getLazyValue(name);
+          }
+
+          @Override
+          public boolean hasAny(Resource<?> resource) {
+            return resource.lazyValues != null;
+          }
+        });
+  }
+
   public Resource() {
     this.identifier = null;
   }
@@ -106,6 +139,15 @@ public abstract class Resource<T> implements Choice<T> {
     }
   }
 
+  /**
+   * The IIIF context is implied for top-level resources, so it is not kept. Other contexts are kept
+   * as they are. Types with multiple contexts (e.g. search results) derive them on their own.
+   */
+  @JsonSetter("@context")
+  private void setContextFromJson(String context) {
+    this._context = CONTEXT.equals(context) ? null : context;
+  }
+
   @JsonProperty("@type")
   public String getType() {
     return null; // Does not have a type
@@ -119,6 +161,15 @@ public abstract class Resource<T> implements Choice<T> {
     this.identifier = identifier;
   }
 
+  /**
+   * New resources get their identifier from the constructor, this is only used when an existing
+   * resource is updated from JSON.
+   */
+  @JsonSetter("@id")
+  private void setIdentifierFromJson(String identifier) {
+    this.identifier = identifier != null ? URI.create(identifier) : null;
+  }
+
   public List<Service> getServices() {
     return this.services;
   }
@@ -160,11 +211,12 @@ public abstract class Resource<T> implements Choice<T> {
   }
 
   public List<MetadataEntry> getMetadata() {
+    bindLazyValue("metadata");
     return metadata;
   }
 
   public Resource addMetadata(MetadataEntry... meta) {
-    if (this.metadata == null) {
+    if (this.getMetadata() == null) {
       this.metadata = new ArrayList<>();
     }
     this.metadata.addAll(Arrays.asList(meta));
@@ -403,15 +455,17 @@ public abstract class Resource<T> implements Choice<T> {
   }
 
   public List<OtherContent> getSeeAlso() {
+    bindLazyValue("seeAlso");
     return seeAlsoContents;
   }
 
   public void setSeeAlso(List<OtherContent> seeAlso) {
+    discardLazyValue("seeAlso");
     this.seeAlsoContents = seeAlso;
   }
 
   public Resource addSeeAlso(OtherContent first, OtherContent... rest) {
-    if (seeAlsoContents == null) {
+    if (getSeeAlso() == null) {
       this.seeAlsoContents = new ArrayList<>();
     }
     this.seeAlsoContents.addAll(asList(first, rest));
@@ -457,4 +511,90 @@ public abstract class Resource<T> implements Choice<T> {
   public void setAlternatives(List<T> alternatives) {
     this.alternatives = alternatives;
   }
+
+  private synchronized void setLazyValue(String name, LazyValue value) {
+    Map<String, LazyValue> values = lazyValues;
+    if (values == null) {
+      values = new HashMap<>();
+    }
+    values.put(name, value);
+    lazyValues = values;
+  }
+
+  private LazyValue getLazyValue(String name) {
+    if (lazyValues == null) {
+      return null;
+    }
+    synchronized (this) {
+      Map<String, LazyValue> values = lazyValues;
+      return values != null ? values.get(name) : null;
+    }
+  }
+
+  /**
+   * Bind the captured value of a property, if it was not bound yet.
+   *
+   * <p>Getters of lazy properties must call this before they access their field.
+   *
+   * @param name JSON name of the property
+   */
+  void bindLazyValue(String name) {
+    if (lazyValues == null) {
+      return;
+    }
+    synchronized (this) {
+      Map<String, LazyValue> values = lazyValues;
+      LazyValue value = values != null ? values.get(name) : null;
+      if (value != null) {
+        // The field is set before the value is removed, readers that see no lazy values see it
+        setLazyProperty(name, value.bind());
+        removeLazyValue(name);
+      }
+    }
+  }
+
+  /**
+   * Set the field of a lazy property to its bound value. Subclasses with their own lazy properties
+   * handle those and delegate the others.
+   *
+   * @param name JSON name of the property
+   * @param value the bound value
+   */
+  @SuppressWarnings("unchecked")
+  void setLazyProperty(String name, Object value) {
+    switch (name) {
+      case "metadata":
+        this.metadata = (List<MetadataEntry>) value;
+        break;
+      case "seeAlso":
+        this.seeAlsoContents = (List<OtherContent>) value;
+        break;
+      default:
+        throw new IllegalArgumentException("Not a lazy property: " + name);
+    }
+  }
+
+  /**
+   * Drop the captured value of a property, since it is about to be replaced.
+   *
+   * @param name JSON name of the property
+   */
+  void discardLazyValue(String name) {
+    if (lazyValues == null) {
+      return;
+    }
+    synchronized (this) {
+      removeLazyValue(name);
+    }
+  }
+
+  private void removeLazyValue(String name) {
+    Map<String, LazyValue> values = lazyValues;
+    if (values != null) {
+      values.remove(name);
+      if (values.isEmpty()) {
+        lazyValues = null;
+      }
+    }
+  }
 }
@@ -0,0 +1,68 @@
+package de.digitalcollections.iiif.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.Resources;
+import de.digitalcollections.iiif.model.jackson.IiifCborMapper;
+import de.digitalcollections.iiif.model.jackson.IiifObjectMapper;
+import de.digitalcollections.iiif.model.jackson.IiifSmileMapper;
+import de.digitalcollections.iiif.model.sharedcanvas.Manifest;
+import de.digitalcollections.iiif.model.sharedcanvas.Resource;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Round-trips of IIIF resources through the binary formats. */
+public class BinaryFormatTest {
+
+  private static final List<String> RESOURCES =
+      Arrays.asList(
+          "spec/presentation/full_response.json",
+          "spec/presentation/manifestWithRanges.json",
+          "spec/presentation/annotationWithChoice.json",
+          "spec/presentation/annotationListWithTranscription.json",
+          "spec/presentation/svgSelector.json",
+          "spec/presentation/pagedCollection.json",
+          "external/biblissima_reconstructed.json",
+          "external/gallica_propvals_without_language.json");
+
+  private ObjectMapper jsonMapper;
+
+  @BeforeEach
+  public void setup() {
+    jsonMapper = new IiifObjectMapper();
+  }
+
+  private void assertLosslessRoundTrip(ObjectMapper binaryMapper) throws IOException {
+    for (String path : RESOURCES) {
+      Resource resource = jsonMapper.readValue(Resources.getResource(path), Resource.class);
+      byte[] encoded = binaryMapper.writeValueAsBytes(resource);
+      Resource decoded = binaryMapper.readValue(encoded, Resource.class);
+      assertThat(jsonMapper.writeValueAsString(decoded))
+          .as(path)
+          .isEqualTo(jsonMapper.writeValueAsString(resource));
+    }
+  }
+
+  @Test
+  public void testSmileRoundTrip() throws IOException {
+    assertLosslessRoundTrip(new IiifSmileMapper());
+  }
+
+  @Test
+  public void testCborRoundTrip() throws IOException {
+    assertLosslessRoundTrip(new IiifCborMapper());
+  }
+
+  @Test
+  public void testCopyKeepsFormat() throws IOException {
+    Manifest manifest = new Manifest("http://some.uri/manifest", "A label for the Manifest");
+    ObjectMapper smileMapper = new IiifSmileMapper();
+    ObjectMapper copy = smileMapper.copy();
+    assertThat(copy).isInstanceOf(IiifSmileMapper.class);
+    assertThat(copy.writeValueAsBytes(manifest)).isEqualTo(smileMapper.writeValueAsBytes(manifest));
+  }
+}
@@ -0,0 +1,109 @@
+package de.digitalcollections.iiif.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import de.digitalcollections.iiif.model.ModelUtilities.Completeness;
+import de.digitalcollections.iiif.model.sharedcanvas.Canvas;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class CompletenessPlanTest {
+
+  public static class Thing {
+    private String identifier;
+    private String type;
+    private List<String> labels;
+    private String description;
+    private String ignored;
+
+    public String getIdentifier() {
+      return identifier;
+    }
+
+    public String getType() {
+      return type;
+    }
+
+    public List<String> getLabels() {
+      return labels;
+    }
+
+    public String getDescription() {
+      return description;
+    }
+
+    @JsonIgnore
+    public String getIgnored() {
+      return ignored;
+    }
+
+    public String getBroken() {
+      throw new IllegalStateException("Not available");
+    }
+  }
+
+  private static Thing thing(String identifier, String type, String... labels) {
+    Thing thing = new Thing();
+    thing.identifier = identifier;
+    thing.type = type;
+    thing.labels = labels.length > 0 ? Arrays.asList(labels) : null;
+    return thing;
+  }
+
+  private static Completeness evaluate(Object res) {
+    return CompletenessPlan.forType(res.getClass()).evaluate(res);
+  }
+
+  @Test
+  public void testEmpty() {
+    Thing thing = thing(null, null);
+    thing.ignored = "ignored";
+    assertThat(evaluate(thing)).isEqualTo(Completeness.EMPTY);
+  }
+
+  @Test
+  public void testIdentifierOnly() {
+    assertThat(evaluate(thing("http://some.uri", null))).isEqualTo(Completeness.ID_ONLY);
+  }
+
+  @Test
+  public void testTypeOnly() {
+    assertThat(evaluate(thing(null, "sc:Canvas"))).isEqualTo(Completeness.COMPLEX);
+    assertThat(CompletenessPlan.forType(Thing.class).evaluate(thing(null, "sc:Canvas"), false))
+        .isEqualTo(Completeness.EMPTY);
+  }
+
+  @Test
+  public void testIdentifierAndType() {
+    Thing thing = thing("http://some.uri", "sc:Canvas");
+    assertThat(evaluate(thing)).isEqualTo(Completeness.ID_AND_TYPE);
+    assertThat(CompletenessPlan.forType(Thing.class).evaluate(thing, false))
+        .isEqualTo(Completeness.ID_ONLY);
+  }
+
+  @Test
+  public void testSeveralFields() {
+    assertThat(evaluate(thing("http://some.uri", "sc:Canvas", "A label")))
+        .isEqualTo(Completeness.ID_AND_TYPE_AND_LABEL);
+    assertThat(evaluate(thing(null, "sc:Canvas", "A label"))).isEqualTo(Completeness.COMPLEX);
+
+    Thing thing = thing("http://some.uri", "sc:Canvas", "A label");
+    thing.description = "A description";
+    assertThat(evaluate(thing)).isEqualTo(Completeness.COMPLEX);
+  }
+
+  @Test
+  public void testResources() {
+    Canvas canvas = new Canvas("http://some.uri/canvas");
+    assertThat(ModelUtilities.getCompleteness(canvas, Canvas.class))
+        .isEqualTo(Completeness.ID_AND_TYPE);
+    assertThat(CompletenessPlan.forType(Canvas.class).evaluate(canvas, false))
+        .isEqualTo(Completeness.ID_ONLY);
+    // Resources expose their label as "getLabel", so it counts as any other field
+    canvas.addLabel("A canvas");
+    assertThat(ModelUtilities.getCompleteness(canvas, Canvas.class))
+        .isEqualTo(Completeness.COMPLEX);
+  }
+}
@@ -3,21 +3,46 @@ package de.digitalcollections.iiif.model;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.google.common.io.Resources;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
+import de.digitalcollections.iiif.model.enums.ViewingDirection;
 import de.digitalcollections.iiif.model.enums.ViewingHint;
 import de.digitalcollections.iiif.model.image.ImageApiProfile;
 import de.digitalcollections.iiif.model.image.ImageService;
+import de.digitalcollections.iiif.model.image.Size;
+import de.digitalcollections.iiif.model.interfaces.Selector;
+import de.digitalcollections.iiif.model.jackson.FragmentCache;
 import de.digitalcollections.iiif.model.jackson.IiifObjectMapper;
+import de.digitalcollections.iiif.model.jackson.StreamingManifestReader;
+import de.digitalcollections.iiif.model.jackson.StreamingManifestWriter;
+import de.digitalcollections.iiif.model.jackson.StreamingManifestWriter.FlushPolicy;
+import de.digitalcollections.iiif.model.openannotation.Annotation;
+import de.digitalcollections.iiif.model.openannotation.SpecificResource;
+import de.digitalcollections.iiif.model.openannotation.SvgSelector;
 import de.digitalcollections.iiif.model.search.ContentSearchService;
 import de.digitalcollections.iiif.model.sharedcanvas.Canvas;
 import de.digitalcollections.iiif.model.sharedcanvas.Collection;
 import de.digitalcollections.iiif.model.sharedcanvas.Manifest;
+import de.digitalcollections.iiif.model.sharedcanvas.Range;
+import de.digitalcollections.iiif.model.sharedcanvas.Resource;
+import de.digitalcollections.iiif.model.sharedcanvas.Sequence;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.URL;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import net.minidev.json.JSONArray;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -156,4 +181,308 @@ public class JsonMappingTest {
     assertThat(parsed.getLabel().getValues()).containsExactly("Key");
     assertThat(parsed.getValue()).isNull();
   }
+
+  @Test
+  public void testSerializationDoesNotModifyResources() throws IOException {
+    Canvas canvas = new Canvas("http://some.uri");
+    ImageContent thumbnail = new ImageContent("http://some.uri/thumb.jpg");
+    canvas.addThumbnail(thumbnail);
+    ImageContent image = new ImageContent("http://some.uri/image.jpg");
+    image.addAlternative(new ImageContent("http://some.uri/image.png"));
+    canvas.addLogo(image);
+    Manifest manifest = new Manifest("http://some.uri/manifest", "A label for the Manifest");
+    manifest.addSequence(new Sequence("http://some.uri/sequence"));
+    manifest.getDefaultSequence().addCanvas(canvas);
+
+    String canvasJson = mapper.writeValueAsString(canvas);
+    assertThat(JsonPath.parse(canvasJson).read("thumbnail", Map.class)).doesNotContainKey("@type");
+    assertThat(canvas._context).isNull();
+    assertThat(thumbnail.getType()).isEqualTo(ImageContent.TYPE);
+    assertThat(image.getAlternatives()).hasSize(1);
+
+    // The canvas was top-level before, but must not have a context within the manifest
+    DocumentContext ctx = JsonPath.parse(mapper.writeValueAsString(manifest));
+    assertThat((JSONArray) ctx.read("..['@context']")).hasSize(1);
+    JsonPathAssert.assertThat(ctx)
+        .jsonPathAsString("sequences[0].canvases[0].logo['@type']")
+        .isEqualTo("oa:Choice");
+  }
+
+  @Test
+  public void testContextFromJson() throws IOException {
+    String json = "{\"@type\": \"sc:Canvas\", \"@id\": \"http://some.uri\", \"@context\": %s}";
+    String iiifContext = "\"" + Resource.CONTEXT + "\"";
+    String otherContext = "\"http://some.uri/context.json\"";
+    assertThat(mapper.readValue(String.format(json, iiifContext), Canvas.class)._context).isNull();
+    assertThat(mapper.readValue(String.format(json, otherContext), Canvas.class)._context)
+        .isEqualTo("http://some.uri/context.json");
+    // Multiple contexts are not supported on resources, but they are not silently dropped either
+    String contexts = "[" + iiifContext + ", " + otherContext + "]";
+    assertThatThrownBy(() -> mapper.readValue(String.format(json, contexts), Canvas.class))
+        .isInstanceOf(IOException.class);
+  }
+
+  @Test
+  public void testServiceDispatch() throws IOException {
+    // Image API 1.1 service with the legacy context
+    String v1Json =
+        "{\"@context\": \"http://library.stanford.edu/iiif/image-api/1.1/context.json\",\"@id\":"
+            + " \"http://some.uri/iiif/foo\",\"profile\":"
+            + " \"http://library.stanford.edu/iiif/image-api/1.1/compliance.html#level1\",\"width\":"
+            + " 800, \"height\": 600, \"tile_width\": 256, \"scale_factors\": [1, 2],\"formats\":"
+            + " [\"jpg\"], \"qualities\": [\"native\", \"grey\"]}";
+    ImageService v1Service = (ImageService) mapper.readValue(v1Json, Service.class);
+    assertThat(v1Service.getContext().toString())
+        .isEqualTo("http://library.stanford.edu/iiif/image-api/1.1/context.json");
+    assertThat(v1Service.getIdentifier().toString()).isEqualTo("http://some.uri/iiif/foo");
+    assertThat(v1Service.getWidth()).isEqualTo(800);
+    assertThat(v1Service.getHeight()).isEqualTo(600);
+    assertThat(v1Service.getSizes()).containsExactly(new Size(800, 600), new Size(400, 300));
+    assertThat(v1Service.getTiles()).hasSize(1);
+    assertThat(v1Service.getTiles().get(0).getScaleFactors()).containsExactly(1, 2);
+    assertThat(v1Service.getProfiles()).hasSize(2);
+    assertThat(v1Service.getProfiles().get(0).getIdentifier().toString())
+        .isEqualTo("http://library.stanford.edu/iiif/image-api/1.1/compliance.html#level1");
+    ImageApiProfile v1Profile = (ImageApiProfile) v1Service.getProfiles().get(1);
+    assertThat(v1Profile.getFormats()).containsExactly(ImageApiProfile.Format.JPG);
+    assertThat(v1Profile.getQualities())
+        .containsExactly(ImageApiProfile.Quality.DEFAULT, ImageApiProfile.Quality.GRAY);
+
+    // Image API 1.x service that is only identified by its profile
+    String profileJson =
+        "{\"@id\": \"http://some.uri/iiif/foo\","
+            + "\"dcterms:conformsTo\": "
+            + "\"http://library.stanford.edu/iiif/image-api/1.1/conformance.html#level1\"}";
+    ImageService profileService = (ImageService) mapper.readValue(profileJson, Service.class);
+    assertThat(profileService.getContext().toString()).isEqualTo(ImageService.CONTEXT);
+    assertThat(profileService.getIdentifier().toString()).isEqualTo("http://some.uri/iiif/foo");
+    assertThat(profileService.getProfiles()).hasSize(1);
+
+    // Unknown contexts fall back to a generic service
+    String genericJson =
+        "{\"@context\": \"http://some.uri/context.json\", \"@id\": \"http://some.uri/service\","
+            + "\"profile\": \"http://some.uri/profile\"}";
+    Service genericService = mapper.readValue(genericJson, Service.class);
+    assertThat(genericService).isExactlyInstanceOf(GenericService.class);
+    assertThat(genericService.getContext().toString()).isEqualTo("http://some.uri/context.json");
+    assertThat(genericService.getIdentifier().toString()).isEqualTo("http://some.uri/service");
+    assertThat(genericService.getProfiles()).hasSize(1);
+
+    // @context after the other fields, which have to be buffered until the type is known
+    String lateContextJson =
+        "{\"@id\": \"http://some.uri/iiif/foo\","
+            + "\"profile\": \"http://iiif.io/api/image/2/level1.json\","
+            + "\"width\": 800, \"height\": 600,"
+            + "\"@context\": \"http://iiif.io/api/image/2/context.json\"}";
+    Service lateContextService = mapper.readValue(lateContextJson, Service.class);
+    assertThat(lateContextService).isExactlyInstanceOf(ImageService.class);
+    assertThat(((ImageService) lateContextService).getWidth()).isEqualTo(800);
+    assertThat(lateContextService.getProfiles()).containsExactly(ImageApiProfile.LEVEL_ONE);
+    assertThat(mapper.writeValueAsString(lateContextService))
+        .isEqualTo(
+            mapper.writeValueAsString(
+                mapper.readValue(
+                    "{\"@context\": \"http://iiif.io/api/image/2/context.json\","
+                        + "\"@id\": \"http://some.uri/iiif/foo\","
+                        + "\"profile\": \"http://iiif.io/api/image/2/level1.json\","
+                        + "\"width\": 800, \"height\": 600}",
+                    Service.class)));
+  }
+
+  @Test
+  public void testStreamingManifestWriter() throws IOException {
+    Manifest manifest = new Manifest("http://some.uri/manifest", "A label for the Manifest");
+    manifest.addLogo("http://some.uri/logo.jpg");
+    manifest.addSequence(new Sequence("http://some.uri/sequence"));
+    manifest.addRange(new Range("http://some.uri/range", "A range"));
+    List<Canvas> canvases = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Canvas canvas = new Canvas("http://some.uri/canvas/" + i, "Page " + i);
+      canvas.addIIIFImage("http://some.uri/iiif/" + i, ImageApiProfile.LEVEL_ONE);
+      canvases.add(canvas);
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
+    try (StreamingManifestWriter manifestWriter =
+        new StreamingManifestWriter(writer, manifest, out, FlushPolicy.every(2))) {
+      manifestWriter.writeCanvases(canvases.iterator());
+    }
+    assertThat(manifest.getDefaultSequence().getCanvases()).isNull();
+
+    canvases.forEach(c -> manifest.getDefaultSequence().addCanvas(c));
+    assertThat(out.toString("UTF-8")).isEqualTo(writer.writeValueAsString(manifest));
+  }
+
+  @Test
+  public void testStreamingManifestReader() throws IOException {
+    String json =
+        "{\"@type\": \"sc:Manifest\", \"label\": \"A label for the Manifest\","
+            + "\"sequences\": [{\"@type\": \"sc:Sequence\", \"canvases\": ["
+            + "{\"@id\": \"http://some.uri/canvas/0\", \"@type\": \"sc:Canvas\"},"
+            + "{\"@id\": \"http://some.uri/canvas/1\", \"@type\": \"sc:Canvas\"}],"
+            + "\"@id\": \"http://some.uri/sequence\"}],"
+            + "\"@id\": \"http://some.uri/manifest\"}";
+    List<String> canvasIds = new ArrayList<>();
+    try (StreamingManifestReader reader =
+        new StreamingManifestReader(mapper.reader(), mapper.getFactory().createParser(json))) {
+      Manifest manifest = reader.getManifest();
+      assertThat(manifest.getLabelString()).isEqualTo("A label for the Manifest");
+      assertThat(manifest.getDefaultSequence()).isNotNull();
+      reader.canvases().forEachRemaining(c -> canvasIds.add(c.getIdentifier().toString()));
+      assertThat(manifest.getDefaultSequence().getCanvases()).isNull();
+      // Fields after the canvases are only available once all canvases have been read
+      assertThat(manifest.getIdentifier().toString()).isEqualTo("http://some.uri/manifest");
+      assertThat(manifest.getDefaultSequence().getIdentifier().toString())
+          .isEqualTo("http://some.uri/sequence");
+    }
+    assertThat(canvasIds).containsExactly("http://some.uri/canvas/0", "http://some.uri/canvas/1");
+  }
+
+  @Test
+  public void testGeneratedAccessors() throws IOException {
+    ObjectMapper generatedMapper = new IiifObjectMapper(true);
+    URL specUrl = Resources.getResource("spec/presentation/full_response.json");
+    Manifest manifest = mapper.readValue(specUrl, Manifest.class);
+    Manifest generatedManifest = generatedMapper.readValue(specUrl, Manifest.class);
+    assertThat(generatedMapper.writeValueAsString(generatedManifest))
+        .isEqualTo(mapper.writeValueAsString(manifest));
+  }
+
+  @Test
+  public void testFragmentCache() throws IOException {
+    IiifObjectMapper cachingMapper = new IiifObjectMapper();
+    ImageService service = new ImageService("http://some.uri/iiif/foo", ImageApiProfile.LEVEL_ONE);
+    PropertyValue attribution = new PropertyValue("Provided by some library");
+    Manifest manifest = new Manifest("http://some.uri/manifest", "A label for the Manifest");
+    manifest.addSequence(new Sequence("http://some.uri/sequence"));
+    for (int i = 0; i < 3; i++) {
+      Canvas canvas = new Canvas("http://some.uri/canvas/" + i, "Page " + i);
+      canvas.addThumbnail(new ImageContent("http://some.uri/thumb/" + i + ".jpg"));
+      canvas.getThumbnail().addService(service);
+      canvas.setAttribution(attribution);
+      manifest.getDefaultSequence().addCanvas(canvas);
+    }
+    String expected = mapper.writeValueAsString(manifest);
+
+    cachingMapper.getFragmentCache().register(service).register(attribution);
+    assertThat(cachingMapper.writeValueAsString(manifest)).isEqualTo(expected);
+    assertThat(cachingMapper.writeValueAsString(manifest)).isEqualTo(expected);
+
+    // Copies are configured on their own, so they don't reuse the fragments of the original
+    ObjectMapper copy = cachingMapper.copy().setSerializationInclusion(Include.ALWAYS);
+    ObjectMapper uncachedCopy = mapper.copy().setSerializationInclusion(Include.ALWAYS);
+    assertThat(copy.writeValueAsString(manifest))
+        .isEqualTo(uncachedCopy.writeValueAsString(manifest))
+        .isNotEqualTo(expected);
+
+    // Modified objects have to be registered again
+    attribution.addValue("Digitized by some other library");
+    cachingMapper.getFragmentCache().register(attribution);
+    assertThat(cachingMapper.writeValueAsString(manifest))
+        .isEqualTo(mapper.writeValueAsString(manifest));
+
+    // Unregistered objects are written from scratch, the global fast path stays enabled
+    cachingMapper.getFragmentCache().unregister(service).unregister(attribution);
+    service.setWidth(1000);
+    assertThat(cachingMapper.writeValueAsString(manifest))
+        .isEqualTo(mapper.writeValueAsString(manifest));
+    assertThat(FragmentCache.isInUse()).isTrue();
+  }
+
+  /** Bean with a map-like property, the field of its values is only known while serializing. */
+  public static class FieldMap {
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+
+    @JsonAnyGetter
+    public Map<String, Object> getFields() {
+      return fields;
+    }
+  }
+
+  @Test
+  public void testFieldRules() throws IOException {
+    Canvas canvas = new Canvas("http://some.uri/canvas", "A canvas");
+    ImageContent thumbnail = new ImageContent("http://some.uri/thumb.jpg");
+    thumbnail.setFormat(MimeType.fromTypename("image/jpeg"));
+    thumbnail.addService(new ImageService("http://some.uri/iiif/thumb"));
+    canvas.addThumbnail(thumbnail);
+    canvas.addIIIFImage("http://some.uri/iiif/foo", ImageApiProfile.LEVEL_ONE);
+    canvas.addSeeAlso(
+        new OtherContent("http://some.uri/a.xml", "text/xml"),
+        new OtherContent("http://some.uri/b.xml", "text/xml"));
+
+    DocumentContext ctx = JsonPath.parse(mapper.writeValueAsString(canvas));
+    // Single values of these fields are unwrapped, images are implicit in thumbnails
+    assertThat(ctx.read("$.thumbnail", Map.class)).doesNotContainKey("@type");
+    assertThat(ctx.read("$.thumbnail.service['@id']", String.class))
+        .isEqualTo("http://some.uri/iiif/thumb");
+    // Other fields stay arrays even if they only contain a single element
+    assertThat(ctx.read("$.images", JSONArray.class)).hasSize(1);
+    assertThat(ctx.read("$.images[0].resource['@type']", String.class)).isEqualTo("dctypes:Image");
+    assertThat(ctx.read("$.images[0].resource.service['@id']", String.class))
+        .isEqualTo("http://some.uri/iiif/foo");
+    assertThat(ctx.read("$.seeAlso", JSONArray.class)).hasSize(2);
+
+    // For map-like properties, the rules have to be looked up from the key
+    FieldMap fieldMap = new FieldMap();
+    fieldMap.getFields().put("thumbnail", thumbnail);
+    fieldMap.getFields().put("resource", thumbnail);
+    fieldMap.getFields().put("service", thumbnail.getServices());
+    fieldMap.getFields().put("images", canvas.getImages());
+    ctx = JsonPath.parse(mapper.writeValueAsString(fieldMap));
+    assertThat(ctx.read("$.thumbnail", Map.class)).doesNotContainKey("@type");
+    assertThat(ctx.read("$.resource['@type']", String.class)).isEqualTo("dctypes:Image");
+    assertThat(ctx.read("$.service['@id']", String.class)).isEqualTo("http://some.uri/iiif/thumb");
+    assertThat(ctx.read("$.images", JSONArray.class)).hasSize(1);
+  }
+
+  /** Bean that can't be created from a string. */
+  public static class WithoutStringConstructor {
+    public String value;
+  }
+
+  @Test
+  public void testProblemHandler() throws IOException {
+    // Enum constants are also matched if their spelling differs in case
+    assertThat(mapper.readValue("\"RIGHT-TO-LEFT\"", ViewingDirection.class))
+        .isEqualTo(ViewingDirection.RIGHT_TO_LEFT);
+    assertThatThrownBy(() -> mapper.readValue("\"sideways\"", ViewingDirection.class))
+        .isInstanceOf(InvalidFormatException.class);
+
+    // The missing constructor is only looked up once, but has to fail every time
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> mapper.readValue("\"foo\"", WithoutStringConstructor.class))
+          .isInstanceOf(MismatchedInputException.class);
+    }
+
+    // Multi-valued @types are reduced to the type that is not cnt:ContentAsText
+    String annotation =
+        "{\"@type\": \"oa:Annotation\", \"motivation\": \"sc:painting\",\"resource\": {\"@type\":"
+            + " \"oa:SpecificResource\", \"full\": \"http://some.uri/img\",\"selector\":"
+            + " {\"@type\": [%s], \"chars\": \"<svg/>\"}},\"on\": \"http://some.uri/canvas\"}";
+    for (String types :
+        new String[] {
+          "\"oa:SvgSelector\", \"cnt:ContentAsText\"", "\"cnt:ContentAsText\", \"oa:SvgSelector\""
+        }) {
+      Annotation anno = mapper.readValue(String.format(annotation, types), Annotation.class);
+      assertThat(anno.getResource()).isInstanceOf(SpecificResource.class);
+      Selector selector = ((SpecificResource) anno.getResource()).getSelector();
+      assertThat(selector).isInstanceOf(SvgSelector.class);
+      assertThat(((SvgSelector) selector).getChars()).isEqualTo("<svg/>");
+    }
+  }
+
+  @Test
+  public void testTypedReadersAndWriters() throws IOException {
+    IiifObjectMapper typedMapper = new IiifObjectMapper();
+    URL specUrl = Resources.getResource("spec/presentation/full_response.json");
+    Manifest manifest = typedMapper.typedReader(Manifest.class).readValue(specUrl);
+    assertThat(typedMapper.typedReader(Manifest.class))
+        .isSameAs(typedMapper.typedReader(Manifest.class));
+    assertThat(typedMapper.typedWriter(Manifest.class))
+        .isSameAs(typedMapper.typedWriter(Manifest.class));
+    assertThat(typedMapper.typedWriter(Manifest.class).writeValueAsString(manifest))
+        .isEqualTo(mapper.writeValueAsString(mapper.readValue(specUrl, Manifest.class)));
+  }
 }
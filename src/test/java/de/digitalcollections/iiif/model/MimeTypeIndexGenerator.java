@@ -0,0 +1,94 @@
+package de.digitalcollections.iiif.model;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Generates the MIME type index that {@link MimeType} loads from the IANA list in {@code
+ * mime.types}.
+ *
+ * <p>Run {@link #main(String[])} from the project directory after updating {@code mime.types},
+ * {@link MimeTypeTest} checks that the index is up to date.
+ */
+public class MimeTypeIndexGenerator {
+
+  static final Path SOURCE = Paths.get("src/test/resources/mime.types");
+  static final Path INDEX = Paths.get("src/main/resources/mime.index");
+
+  private static final Pattern MIME_PATTERN =
+      Pattern.compile(
+          "^(?<primaryType>[-a-z]+?)/(?<subType>[-\\\\.a-z0-9*]+?)(?:\\+(?<suffix>\\w+))?$");
+
+  /** Extensions that are used by several types, with the type that is chosen for them. */
+  private static final Map<String, String> EXTENSION_OWNERS =
+      ImmutableMap.of("sub", "text/vnd.dvb.subtitle", "wmz", "application/x-ms-wmz");
+
+  /**
+   * Generate the index.
+   *
+   * @param lines lines of {@code mime.types}
+   * @return the content of the index
+   */
+  static String generate(List<String> lines) {
+    Map<String, List<String>> types = new LinkedHashMap<>();
+    for (String line : lines) {
+      // Types without a unique extension are commented out, but are known nevertheless
+      String[] columns = line.replaceAll("^# ", "").split("\t+");
+      if (!MIME_PATTERN.matcher(columns[0]).matches()) {
+        continue;
+      }
+      List<String> extensions =
+          columns.length > 1
+              ? new ArrayList<>(Arrays.asList(columns[1].split(" ")))
+              : new ArrayList<>();
+      if (types.put(columns[0], extensions) != null) {
+        throw new IllegalStateException("Duplicate MIME type " + columns[0]);
+      }
+    }
+
+    // Some custom overrides to influence the order of file extensions
+    types.put("image/jpeg", Arrays.asList("jpg", "jpeg", "jpe"));
+    types.put("image/tiff", Arrays.asList("tif", "tiff"));
+    types.get("application/xml").add("ent");
+    types.put("image/*", Collections.emptyList());
+
+    // Types come first if they own an extension that other types use as well
+    Map<String, List<String>> ordered = new LinkedHashMap<>();
+    EXTENSION_OWNERS.values().forEach(typeName -> ordered.put(typeName, types.get(typeName)));
+    types.forEach(ordered::putIfAbsent);
+
+    Map<String, String> extensionMapping = new LinkedHashMap<>();
+    StringBuilder index = new StringBuilder("# Generated from mime.types by ");
+    index.append(MimeTypeIndexGenerator.class.getSimpleName()).append(", do not edit\n");
+    for (Map.Entry<String, List<String>> entry : ordered.entrySet()) {
+      String typeName = entry.getKey();
+      for (String ext : entry.getValue()) {
+        String owner = extensionMapping.putIfAbsent(ext, typeName);
+        if (owner != null && !owner.equals(EXTENSION_OWNERS.get(ext))) {
+          throw new IllegalStateException(
+              String.format(
+                  "Extension %s is used by %s and %s, add it to the extension owners",
+                  ext, owner, typeName));
+        }
+      }
+      index.append(typeName).append('\t').append(String.join(" ", entry.getValue())).append('\n');
+    }
+    return index.toString();
+  }
+
+  public static void main(String[] args) throws IOException {
+    String index = generate(Files.readAllLines(SOURCE, StandardCharsets.US_ASCII));
+    Files.write(INDEX, index.getBytes(StandardCharsets.US_ASCII));
+  }
+}
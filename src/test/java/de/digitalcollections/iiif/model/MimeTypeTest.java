@@ -0,0 +1,136 @@
+package de.digitalcollections.iiif.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.io.Resources;
+import de.digitalcollections.iiif.model.image.ImageApiProfile.Format;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class MimeTypeTest {
+
+  @Test
+  public void testIndexIsUpToDate() throws IOException {
+    List<String> lines =
+        Resources.readLines(Resources.getResource("mime.types"), StandardCharsets.US_ASCII);
+    assertThat(Resources.toString(Resources.getResource("mime.index"), StandardCharsets.US_ASCII))
+        .as("mime.index has to be regenerated with MimeTypeIndexGenerator")
+        .isEqualTo(MimeTypeIndexGenerator.generate(lines));
+  }
+
+  @Test
+  public void testCommonTypesMatchIndex() throws IOException {
+    Set<String> seenExtensions = new HashSet<>();
+    for (String line :
+        Resources.readLines(Resources.getResource("mime.index"), StandardCharsets.US_ASCII)) {
+      if (line.startsWith("#")) {
+        continue;
+      }
+      String[] columns = line.split("\t", -1);
+      List<String> extensions =
+          columns[1].isEmpty() ? Collections.emptyList() : Arrays.asList(columns[1].split(" "));
+      MimeType type = MimeType.fromTypename(columns[0]);
+      assertThat(type.getTypeName()).isEqualTo(columns[0]);
+      assertThat(type.getExtensions()).as(columns[0]).isEqualTo(extensions);
+      for (String ext : extensions) {
+        // The first type with an extension is used for it
+        if (seenExtensions.add(ext)) {
+          assertThat(MimeType.fromExtension(ext)).as(ext).isSameAs(type);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testConstants() {
+    assertThat(MimeType.fromTypename("image/jpeg")).isSameAs(MimeType.MIME_IMAGE_JPEG);
+    assertThat(MimeType.fromFilename("default.jpg")).isSameAs(MimeType.MIME_IMAGE_JPEG);
+    assertThat(MimeType.fromExtension(".XML")).isSameAs(MimeType.MIME_APPLICATION_XML);
+    assertThat(MimeType.MIME_APPLICATION_LD_JSON.getSuffix()).isEqualTo("json");
+    assertThat(MimeType.MIME_IMAGE.getSubType()).isEqualTo("*");
+    assertThat(MimeType.fromExtension("sub").getTypeName()).isEqualTo("text/vnd.dvb.subtitle");
+  }
+
+  @Test
+  public void testNonStandardTypes() {
+    MimeType vendorType = MimeType.fromTypename("application/vnd.example.manifest+json");
+    assertThat(vendorType.getSubType()).isEqualTo("vnd.example.manifest");
+    assertThat(vendorType.getSuffix()).isEqualTo("json");
+    assertThat(MimeType.fromTypename("application/vnd.example.manifest+json")).isSameAs(vendorType);
+    assertThat(MimeType.fromTypename("x-example/thing")).isNotNull();
+    assertThat(MimeType.fromTypename("application/made-up")).isNull();
+    assertThat(vendorType).isNotEqualTo(MimeType.MIME_APPLICATION_JSON);
+    assertThat(vendorType.matches(MimeType.MIME_IMAGE)).isFalse();
+    assertThat(MimeType.MIME_IMAGE.matches(MimeType.fromTypename("image/x-example"))).isTrue();
+  }
+
+  @Test
+  public void testAcceptHeaderNegotiation() {
+    AcceptHeader browser =
+        AcceptHeader.parse("image/avif,image/webp,image/apng,image/svg+xml,image/*,*/*;q=0.8");
+    assertThat(browser)
+        .isSameAs(
+            AcceptHeader.parse("image/avif,image/webp,image/apng,image/svg+xml,image/*,*/*;q=0.8"));
+    List<Format> formats = Arrays.asList(Format.values());
+    assertThat(browser.selectBest(formats, Format::getMimeType)).isEqualTo(Format.JPG);
+    assertThat(browser.selectBest(MimeType.MIME_IMAGE_PNG, MimeType.MIME_IMAGE_WEBP))
+        .isSameAs(MimeType.MIME_IMAGE_PNG);
+    assertThat(browser.getQuality(MimeType.MIME_APPLICATION_JSON)).isEqualTo(0.8f);
+
+    AcceptHeader weighted = AcceptHeader.parse("image/*;q=0.5, image/webp, image/png;q=0");
+    assertThat(weighted.selectBest(MimeType.MIME_IMAGE_PNG, MimeType.MIME_IMAGE_JPEG))
+        .isSameAs(MimeType.MIME_IMAGE_JPEG);
+    assertThat(weighted.selectBest(MimeType.MIME_IMAGE_JPEG, MimeType.MIME_IMAGE_WEBP))
+        .isSameAs(MimeType.MIME_IMAGE_WEBP);
+    assertThat(weighted.selectBest(MimeType.MIME_APPLICATION_JSON)).isNull();
+
+    AcceptHeader presentation =
+        AcceptHeader.parse(
+            "application/ld+json;profile=\"http://iiif.io/api/presentation/2/context.json\","
+                + " application/json;q=0.9");
+    assertThat(
+            presentation.selectBest(
+                MimeType.MIME_APPLICATION_JSON, MimeType.MIME_APPLICATION_LD_JSON))
+        .isSameAs(MimeType.MIME_APPLICATION_LD_JSON);
+    assertThat(AcceptHeader.parse(null).selectBest(MimeType.MIME_APPLICATION_JSON))
+        .isSameAs(MimeType.MIME_APPLICATION_JSON);
+
+    // Separators in quoted parameters don't split the header
+    AcceptHeader quoted =
+        AcceptHeader.parse(
+            "application/ld+json;profile=\"http://some.uri/a,http://some.uri/b;q=0\";q=0.5,"
+                + " application/json;q=0.9");
+    assertThat(quoted.getRanges()).hasSize(2);
+    assertThat(quoted.getQuality(MimeType.MIME_APPLICATION_LD_JSON)).isEqualTo(0.5f);
+    assertThat(quoted.getQuality(MimeType.MIME_APPLICATION_JSON)).isEqualTo(0.9f);
+    assertThat(AcceptHeader.parse("application/ld+json;profile=\"a\\\",b\";q=0.1").getRanges())
+        .hasSize(1)
+        .allMatch(range -> range.getQuality() == 0.1f);
+  }
+
+  @Test
+  public void testFromURI() {
+    assertThat(MimeType.fromURI(URI.create("https://example.com/iiif/image.jpg?download=true")))
+        .isSameAs(MimeType.MIME_IMAGE_JPEG);
+    assertThat(MimeType.fromURI(URI.create("file:///tmp/transcription.xml")))
+        .isSameAs(MimeType.MIME_APPLICATION_XML);
+    assertThat(MimeType.fromURI(URI.create("https://example.com/v1.0/manifest"))).isNull();
+    assertThat(MimeType.fromURI(null)).isNull();
+    assertThat(
+            MimeType.fromURIs(
+                Arrays.asList(
+                    URI.create("https://example.com/page1.png"),
+                    URI.create("https://example.com/page2.png"),
+                    URI.create("https://example.com/text.pdf#page=2"),
+                    URI.create("urn:example:document"))))
+        .containsExactly(
+            MimeType.MIME_IMAGE_PNG, MimeType.MIME_IMAGE_PNG, MimeType.MIME_APPLICATION_PDF, null);
+  }
+}
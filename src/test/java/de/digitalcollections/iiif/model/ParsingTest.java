@@ -9,9 +9,14 @@ import de.digitalcollections.iiif.model.image.ImageApiProfile.Quality;
 import de.digitalcollections.iiif.model.image.ImageApiSelector;
 import de.digitalcollections.iiif.model.image.ImageService;
 import de.digitalcollections.iiif.model.image.Size;
+import de.digitalcollections.iiif.model.interfaces.Selector;
 import de.digitalcollections.iiif.model.jackson.IiifObjectMapper;
+import de.digitalcollections.iiif.model.openannotation.Annotation;
+import de.digitalcollections.iiif.model.openannotation.SpecificResource;
+import de.digitalcollections.iiif.model.openannotation.SvgSelector;
 import de.digitalcollections.iiif.model.sharedcanvas.Canvas;
 import de.digitalcollections.iiif.model.sharedcanvas.Manifest;
+import de.digitalcollections.iiif.model.sharedcanvas.Resource;
 import java.io.IOException;
 import java.util.Locale;
 import org.junit.jupiter.api.BeforeEach;
@@ -120,6 +125,99 @@ public class ParsingTest {
     assertThat(imgContent.getAlternatives()).allMatch(ImageContent.class::isInstance);
   }
 
+  @Test
+  public void testTypePosition() throws Exception {
+    // Annotations are created once their motivation is known, which is needed for "on", images
+    // once their identifier is known. The annotations are created while the fields before @type
+    // are replayed, the images only when they end.
+    String typeFirst =
+        "{\"@type\": \"oa:Annotation\", \"motivation\": \"sc:painting\","
+            + "\"label\": \"An annotation\","
+            + "\"resource\": {\"@type\": \"dctypes:Image\", \"format\": \"image/jpeg\","
+            + "\"@id\": \"http://some.uri/image.jpg\"},"
+            + "\"on\": \"http://some.uri/canvas\"}";
+    String typeBetween =
+        "{\"motivation\": \"sc:painting\", \"label\": \"An annotation\","
+            + "\"@type\": \"oa:Annotation\","
+            + "\"resource\": {\"format\": \"image/jpeg\", \"@type\": \"dctypes:Image\","
+            + "\"@id\": \"http://some.uri/image.jpg\"},"
+            + "\"on\": \"http://some.uri/canvas\"}";
+    String typeLast =
+        "{\"motivation\": \"sc:painting\", \"label\": \"An annotation\","
+            + "\"resource\": {\"format\": \"image/jpeg\", \"@id\": \"http://some.uri/image.jpg\","
+            + "\"@type\": \"dctypes:Image\"},"
+            + "\"on\": \"http://some.uri/canvas\", \"@type\": \"oa:Annotation\"}";
+
+    String expected = mapper.writeValueAsString(mapper.readValue(typeFirst, Resource.class));
+    for (String json : new String[] {typeFirst, typeBetween, typeLast}) {
+      Resource<?> resource = mapper.readValue(json, Resource.class);
+      assertThat(resource).isInstanceOf(Annotation.class);
+      Annotation anno = (Annotation) resource;
+      assertThat(anno.getResource()).isInstanceOf(ImageContent.class);
+      assertThat(((ImageContent) anno.getResource()).getFormat().getTypeName())
+          .isEqualTo("image/jpeg");
+      // Only painting annotations point to a canvas, so "on" must still see the annotation
+      assertThat(anno.getOn()).isInstanceOf(Canvas.class);
+      assertThat(mapper.writeValueAsString(resource)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void testChoiceWithItemBeforeDefault() throws Exception {
+    String item = "\"item\": [{\"@id\": \"http://some.uri/image.png\", \"format\": \"image/png\"}]";
+    String defaultImage =
+        "\"default\": {\"@id\": \"http://some.uri/image.jpg\", \"@type\": \"dctypes:Image\"}";
+    String annotation =
+        "{\"@type\": \"oa:Annotation\", \"motivation\": \"sc:painting\","
+            + "\"resource\": {\"@type\": \"oa:Choice\", %s, %s},"
+            + "\"on\": \"http://some.uri/canvas\"}";
+
+    Annotation defaultFirst =
+        mapper.readValue(String.format(annotation, defaultImage, item), Annotation.class);
+    Annotation itemFirst =
+        mapper.readValue(String.format(annotation, item, defaultImage), Annotation.class);
+    assertThat(itemFirst.getResource()).isInstanceOf(ImageContent.class);
+    assertThat(itemFirst.getResource().getIdentifier().toString())
+        .isEqualTo("http://some.uri/image.jpg");
+    assertThat(itemFirst.getResource().getAlternatives()).hasSize(1);
+    assertThat(itemFirst.getResource().getAlternatives().get(0)).isInstanceOf(ImageContent.class);
+    assertThat(itemFirst.getOn()).isInstanceOf(Canvas.class);
+    assertThat(mapper.writeValueAsString(itemFirst))
+        .isEqualTo(mapper.writeValueAsString(defaultFirst));
+  }
+
+  @Test
+  public void testSelectorRoundtrip() throws Exception {
+    // The @type is not passed on to the selectors, but has to be written again
+    String annotation =
+        "{\"@type\": \"oa:Annotation\", \"motivation\": \"sc:painting\","
+            + "\"resource\": {\"@type\": \"oa:SpecificResource\","
+            + "\"full\": \"http://some.uri/image\", \"selector\": %s},"
+            + "\"on\": \"http://some.uri/canvas\"}";
+    String imageSelector =
+        "{\"region\": \"50,50,1250,1850\", \"@type\": \"iiif:ImageApiSelector\","
+            + "\"size\": \"800,600\", \"rotation\": \"!90\"}";
+    String svgSelector =
+        "{\"chars\": \"<svg/>\", \"@type\": [\"cnt:ContentAsText\", \"oa:SvgSelector\"]}";
+
+    Annotation anno = mapper.readValue(String.format(annotation, imageSelector), Annotation.class);
+    Selector selector = ((SpecificResource) anno.getResource()).getSelector();
+    assertThat(selector).isInstanceOf(ImageApiSelector.class);
+    assertThat(((ImageApiSelector) selector).getRegion().toString()).isEqualTo("50,50,1250,1850");
+    assertThat(((ImageApiSelector) selector).getSize().toString()).isEqualTo("800,600");
+    String json = mapper.writeValueAsString(anno);
+    assertThat(json).contains("\"@type\":\"iiif:ImageApiSelector\"");
+    assertThat(mapper.writeValueAsString(mapper.readValue(json, Annotation.class))).isEqualTo(json);
+
+    anno = mapper.readValue(String.format(annotation, svgSelector), Annotation.class);
+    selector = ((SpecificResource) anno.getResource()).getSelector();
+    assertThat(selector).isInstanceOf(SvgSelector.class);
+    assertThat(((SvgSelector) selector).getChars()).isEqualTo("<svg/>");
+    json = mapper.writeValueAsString(anno);
+    assertThat(json).contains("oa:SvgSelector");
+    assertThat(mapper.writeValueAsString(mapper.readValue(json, Annotation.class))).isEqualTo(json);
+  }
+
   @Test
   public void testV10ImageInfo() throws Exception {
     // FIXME: It's kind of ugly that we have to deserialize into the generic type first
@@ -43,4 +43,18 @@ public class PropertyValueTest {
     assertThat(deserialized.getLocalizations()).containsOnly(Locale.ENGLISH);
     assertThat(deserialized.getValues(Locale.ENGLISH)).containsExactly("one", "two");
   }
+
+  @Test
+  public void languageAfterValue() throws Exception {
+    IiifObjectMapper mapper = new IiifObjectMapper();
+    String json =
+        "[{'@value':['un','deux'],'@language':'fr'},'plain',{'@value':'eins','@language':'de'}]"
+            .replace("'", "\"");
+    PropertyValue deserialized = mapper.readValue(json, PropertyValue.class);
+    assertThat(deserialized.getLocalizations())
+        .containsExactly(Locale.FRENCH, Locale.ROOT, Locale.GERMAN);
+    assertThat(deserialized.getValues(Locale.FRENCH)).containsExactly("un", "deux");
+    assertThat(deserialized.getValues(Locale.ROOT)).containsExactly("plain");
+    assertThat(deserialized.getValues(Locale.GERMAN)).containsExactly("eins");
+  }
 }
@@ -0,0 +1,96 @@
+package de.digitalcollections.iiif.model.benchmark;
+
+import de.digitalcollections.iiif.model.image.RegexRequestParsers;
+import de.digitalcollections.iiif.model.image.RegionRequest;
+import de.digitalcollections.iiif.model.image.ResolvingException;
+import de.digitalcollections.iiif.model.image.RotationRequest;
+import de.digitalcollections.iiif.model.image.SizeRequest;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the parsers for the region, size and rotation parameters of image requests with the
+ * regular expressions they replaced.
+ *
+ * <p>The regex variants are the previous parsers, see {@link RegexRequestParsers}. Both variants
+ * create the same requests.
+ *
+ * <p>Run {@link #main(String[])} with the test classpath, e.g. from an IDE after {@code mvn
+ * test-compile}. Add {@code -prof gc} to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestParsingBenchmark {
+
+  /** Typical parameters of tile and thumbnail requests. */
+  private final String[] regions = {
+    "full", "0,0,512,512", "512,1024,512,512", "3584,2048,256,180", "pct:41.6,7.5,40,70", "square"
+  };
+
+  private final String[] sizes = {"full", "max", "512,", ",256", "!200,200", "256,180", "pct:50"};
+
+  private final String[] rotations = {"0", "90", "!0", "22.5"};
+
+  @Benchmark
+  public void parseRegion(Blackhole blackhole) throws ResolvingException {
+    for (String region : regions) {
+      blackhole.consume(RegionRequest.fromString(region));
+    }
+  }
+
+  @Benchmark
+  public void parseRegionRegex(Blackhole blackhole) throws ResolvingException {
+    for (String region : regions) {
+      blackhole.consume(RegexRequestParsers.parseRegion(region));
+    }
+  }
+
+  @Benchmark
+  public void parseSize(Blackhole blackhole) throws ResolvingException {
+    for (String size : sizes) {
+      blackhole.consume(SizeRequest.fromString(size));
+    }
+  }
+
+  @Benchmark
+  public void parseSizeRegex(Blackhole blackhole) throws ResolvingException {
+    for (String size : sizes) {
+      blackhole.consume(RegexRequestParsers.parseSize(size));
+    }
+  }
+
+  @Benchmark
+  public void parseRotation(Blackhole blackhole) throws ResolvingException {
+    for (String rotation : rotations) {
+      blackhole.consume(RotationRequest.fromString(rotation));
+    }
+  }
+
+  @Benchmark
+  public void parseRotationRegex(Blackhole blackhole) throws ResolvingException {
+    for (String rotation : rotations) {
+      blackhole.consume(RegexRequestParsers.parseRotation(rotation));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(RequestParsingBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,135 @@
+package de.digitalcollections.iiif.model.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.Resources;
+import de.digitalcollections.iiif.model.OtherContent;
+import de.digitalcollections.iiif.model.jackson.IiifCborMapper;
+import de.digitalcollections.iiif.model.jackson.IiifObjectMapper;
+import de.digitalcollections.iiif.model.jackson.IiifSmileMapper;
+import de.digitalcollections.iiif.model.sharedcanvas.Resource;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares reading and writing IIIF resources as JSON, Smile and CBOR, with and without generated
+ * property accessors.
+ *
+ * <p>The corpus consists of all presentation resources from the specification examples and the
+ * real-world examples in the test resources. The encoded size of the corpus is printed for every
+ * format during the setup.
+ *
+ * <p>Run {@link #main(String[])} with the test classpath, e.g. from an IDE after {@code mvn
+ * test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+  private static final String[] CORPORA = {"spec", "external"};
+
+  @Param({"json", "smile", "cbor"})
+  public String format;
+
+  @Param({"false", "true"})
+  public boolean generatedAccessors;
+
+  private ObjectMapper mapper;
+  private List<Resource> resources;
+  private List<byte[]> encoded;
+
+  @Setup
+  public void setup() throws IOException, URISyntaxException {
+    mapper = createMapper(format, generatedAccessors);
+    resources = loadCorpus(new IiifObjectMapper());
+    encoded = new ArrayList<>();
+    long size = 0;
+    for (Resource resource : resources) {
+      byte[] bytes = mapper.writeValueAsBytes(resource);
+      encoded.add(bytes);
+      size += bytes.length;
+    }
+    System.out.printf("%n%s: %d resources, %d bytes%n", format, resources.size(), size);
+  }
+
+  @Benchmark
+  public void write(Blackhole blackhole) throws IOException {
+    for (Resource resource : resources) {
+      blackhole.consume(mapper.writeValueAsBytes(resource));
+    }
+  }
+
+  @Benchmark
+  public void read(Blackhole blackhole) throws IOException {
+    for (byte[] bytes : encoded) {
+      blackhole.consume(mapper.readValue(bytes, Resource.class));
+    }
+  }
+
+  private static ObjectMapper createMapper(String format, boolean generatedAccessors) {
+    switch (format) {
+      case "smile":
+        return new IiifSmileMapper(generatedAccessors);
+      case "cbor":
+        return new IiifCborMapper(generatedAccessors);
+      default:
+        return new IiifObjectMapper(generatedAccessors);
+    }
+  }
+
+  /** Read all files from the corpora that are presentation resources. */
+  private static List<Resource> loadCorpus(ObjectMapper jsonMapper)
+      throws IOException, URISyntaxException {
+    List<Resource> resources = new ArrayList<>();
+    for (String corpus : CORPORA) {
+      List<Path> files;
+      try (Stream<Path> paths = Files.walk(Paths.get(Resources.getResource(corpus).toURI()))) {
+        files =
+            paths.filter(p -> p.toString().endsWith(".json")).sorted().collect(Collectors.toList());
+      }
+      for (Path file : files) {
+        try {
+          Resource resource = jsonMapper.readValue(file.toFile(), Resource.class);
+          // Other documents (e.g. image services) end up as generic content, if at all
+          if (!(resource instanceof OtherContent)) {
+            resources.add(resource);
+          }
+        } catch (IOException | RuntimeException e) {
+          // Not a presentation resource
+        }
+      }
+    }
+    return resources;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(WireFormatBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
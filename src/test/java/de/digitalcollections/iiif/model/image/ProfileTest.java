@@ -8,6 +8,7 @@ import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.PathNotFoundException;
 import de.digitalcollections.iiif.model.Profile;
 import de.digitalcollections.iiif.model.jackson.IiifObjectMapper;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -71,4 +72,60 @@ public class ProfileTest {
     assertThatExceptionOfType(PathNotFoundException.class)
         .isThrownBy(() -> JsonPath.parse(json).read("$.qualities"));
   }
+
+  @Test
+  public void testFeaturesAreShared() throws IOException {
+    IiifObjectMapper mapper = new IiifObjectMapper();
+    ImageApiProfile profile =
+        mapper.readValue(
+            "{\"formats\":[\"jpg\",\"webp\"],\"qualities\":[\"bitonal\"],"
+                + "\"supports\":[\"rotationBy90s\",\"jsonldMediaType\","
+                + "\"http://example.com/feature\"]}",
+            ImageApiProfile.class);
+    assertThat(profile.getFormats())
+        .containsExactlyInAnyOrder(ImageApiProfile.Format.JPG, ImageApiProfile.Format.WEBP);
+    assertThat(profile.getQualities()).containsExactly(ImageApiProfile.Quality.BITONAL);
+    assertThat(profile.getFeatures())
+        .containsExactlyInAnyOrder(
+            ImageApiProfile.Feature.ROTATION_BY_90S,
+            ImageApiProfile.Feature.JSONLD_MEDIA_TYPE,
+            ImageApiProfile.Feature.fromName("http://example.com/feature"));
+    for (ImageApiProfile.Feature feature : profile.getFeatures()) {
+      assertThat(ImageApiProfile.Feature.fromName(feature.toString())).isSameAs(feature);
+    }
+    assertThat(ImageApiProfile.Feature.fromName("sizeByWh"))
+        .isSameAs(ImageApiProfile.Feature.SIZE_BY_WH)
+        .isEqualTo(new ImageApiProfile.Feature("sizeByWh"));
+  }
+
+  @Test
+  public void testCapabilities() {
+    ImageApiProfile.Feature custom = ImageApiProfile.Feature.fromName("http://example.com/feature");
+    ImageApiProfile profile = new ImageApiProfile();
+    profile.addFeature(ImageApiProfile.Feature.SIZE_ABOVE_FULL, custom);
+    profile.addFormat(ImageApiProfile.Format.WEBP);
+    ImageApiProfile.Capabilities capabilities =
+        ImageApiProfile.LEVEL_TWO.getCapabilities().merge(profile.getCapabilities());
+    assertThat(capabilities.supports(ImageApiProfile.Feature.SIZE_ABOVE_FULL)).isTrue();
+    assertThat(capabilities.supports(ImageApiProfile.Feature.ROTATION_BY_90S)).isTrue();
+    assertThat(capabilities.supports(ImageApiProfile.Feature.MIRRORING)).isFalse();
+    assertThat(capabilities.supports(new ImageApiProfile.Feature("http://example.com/feature")))
+        .isTrue();
+    ImageApiProfile.Feature upperCaseHost =
+        new ImageApiProfile.Feature("http://EXAMPLE.com/feature");
+    assertThat(upperCaseHost).isEqualTo(custom).hasSameHashCodeAs(custom);
+    assertThat(capabilities.supports(upperCaseHost)).isTrue();
+    assertThat(capabilities.supports(ImageApiProfile.Format.WEBP)).isTrue();
+    assertThat(capabilities.supports(ImageApiProfile.Format.GIF)).isFalse();
+    assertThat(capabilities.supports(ImageApiProfile.Quality.BITONAL)).isTrue();
+    assertThat(capabilities)
+        .isEqualTo(ImageApiProfile.LEVEL_TWO.merge(profile).getCapabilities())
+        .isNotEqualTo(ImageApiProfile.LEVEL_TWO.getCapabilities());
+    assertThat(new ImageApiProfile().getCapabilities()).isSameAs(ImageApiProfile.Capabilities.NONE);
+
+    // Equal features are only listed once
+    profile.addFeature(new ImageApiProfile.Feature("sizeAboveFull"));
+    assertThat(profile.getFeatures()).hasSize(2);
+    assertThat(profile.supports(ImageApiProfile.Feature.SIZE_ABOVE_FULL)).isTrue();
+  }
 }
@@ -0,0 +1,75 @@
+package de.digitalcollections.iiif.model.image;
+
+import java.math.BigDecimal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The parsers for the region, size and rotation parameters of image requests that were based on
+ * regular expressions, kept to compare them with the current parsers.
+ */
+public final class RegexRequestParsers {
+
+  private static final Pattern REGION_PATTERN =
+      Pattern.compile("^(pct:)?([0-9.]+),([0-9.]+),([0-9.]+),([0-9.]+)$");
+  private static final Pattern SIZE_PATTERN =
+      Pattern.compile("^(!|pct:)?(?:([0-9]+)?,([0-9]+)?|([0-9.]+))$");
+  private static final Pattern ROTATION_PATTERN = Pattern.compile("^(!)?([0-9]*\\.?[0-9]+)$");
+
+  private RegexRequestParsers() {}
+
+  public static RegionRequest parseRegion(String str) throws ResolvingException {
+    if (str.equals("full")) {
+      return new RegionRequest();
+    }
+    if (str.equals("square")) {
+      return new RegionRequest(true);
+    }
+    Matcher matcher = REGION_PATTERN.matcher(str);
+    if (!matcher.matches()) {
+      throw new ResolvingException("Bad format: " + str);
+    }
+    if (matcher.group(1) == null) {
+      return new RegionRequest(
+          Integer.valueOf(matcher.group(2)),
+          Integer.valueOf(matcher.group(3)),
+          Integer.valueOf(matcher.group(4)),
+          Integer.valueOf(matcher.group(5)));
+    }
+    return RegionRequest.relative(
+        new BigDecimal(matcher.group(2)),
+        new BigDecimal(matcher.group(3)),
+        new BigDecimal(matcher.group(4)),
+        new BigDecimal(matcher.group(5)));
+  }
+
+  public static SizeRequest parseSize(String str) throws ResolvingException {
+    if (str.equals("full")) {
+      return new SizeRequest();
+    }
+    if (str.equals("max")) {
+      return new SizeRequest(true);
+    }
+    Matcher matcher = SIZE_PATTERN.matcher(str);
+    if (!matcher.matches()) {
+      throw new ResolvingException("Bad format: " + str);
+    }
+    if ("!".equals(matcher.group(1))) {
+      return new SizeRequest(
+          Integer.valueOf(matcher.group(2)), Integer.valueOf(matcher.group(3)), true);
+    } else if ("pct:".equals(matcher.group(1))) {
+      return new SizeRequest(new BigDecimal(matcher.group(4)));
+    }
+    Integer width = matcher.group(2) == null ? null : Integer.parseInt(matcher.group(2));
+    Integer height = matcher.group(3) == null ? null : Integer.parseInt(matcher.group(3));
+    return new SizeRequest(width, height);
+  }
+
+  public static RotationRequest parseRotation(String str) throws ResolvingException {
+    Matcher matcher = ROTATION_PATTERN.matcher(str);
+    if (!matcher.matches()) {
+      throw new ResolvingException("Bad format: " + str);
+    }
+    return new RotationRequest(new BigDecimal(matcher.group(2)), matcher.group(1) != null);
+  }
+}
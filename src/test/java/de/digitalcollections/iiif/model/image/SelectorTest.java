@@ -7,6 +7,8 @@ import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
 import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 public class SelectorTest {
@@ -157,6 +159,21 @@ public class SelectorTest {
         .isEqualTo(new Dimension(31, 31000));
   }
 
+  @Test
+  public void testRegexParsersAgree() throws ResolvingException {
+    for (String region : new String[] {"full", "square", "0,0,512,512", "pct:41.6,7.5,40,70"}) {
+      assertThat(RegionRequest.fromString(region))
+          .isEqualTo(RegexRequestParsers.parseRegion(region));
+    }
+    for (String size : new String[] {"full", "max", "512,", ",256", "!200,200", "pct:50.0"}) {
+      assertThat(SizeRequest.fromString(size)).isEqualTo(RegexRequestParsers.parseSize(size));
+    }
+    for (String rotation : new String[] {"0", "!90", "22.5", ".5"}) {
+      assertThat(RotationRequest.fromString(rotation))
+          .isEqualTo(RegexRequestParsers.parseRotation(rotation));
+    }
+  }
+
   @Test
   public void testRotation() throws ResolvingException {
     RotationRequest req = RotationRequest.fromString("180");
@@ -175,6 +192,33 @@ public class SelectorTest {
     assertThat(req.isMirror()).isFalse();
   }
 
+  @Test
+  public void testMalformedRequests() throws ResolvingException {
+    assertThat(RegionRequest.fromString("pct:00.50,5.,.5,100").toString())
+        .isEqualTo("pct:0.50,5,0.5,100");
+    assertThat(SizeRequest.fromString("pct:12.50").toString()).isEqualTo("pct:12.50");
+    assertThat(RotationRequest.fromString("!.5").toString()).isEqualTo("!0.5");
+    for (String region :
+        new String[] {"1.5,2,3,4", "1,2,3", "1,2,3,4,", "2147483648,0,1,1", "pct:1.2.3,1,1,1"}) {
+      assertThatExceptionOfType(ResolvingException.class)
+          .isThrownBy(() -> RegionRequest.fromString(region))
+          .withMessage("Bad format: " + region);
+    }
+    for (String size : new String[] {"!100,", "!100", "pct:50,", "pct:.", "1,2,3", "a,"}) {
+      assertThatExceptionOfType(ResolvingException.class)
+          .isThrownBy(() -> SizeRequest.fromString(size))
+          .withMessage("Bad format: " + size);
+    }
+    assertThatExceptionOfType(ResolvingException.class)
+        .isThrownBy(() -> SizeRequest.fromString(","))
+        .withMessage("Either width or height must be specified!");
+    for (String rotation : new String[] {"5.", "!", "1.2.3", "-90"}) {
+      assertThatExceptionOfType(ResolvingException.class)
+          .isThrownBy(() -> RotationRequest.fromString(rotation))
+          .withMessage("Bad format: " + rotation);
+    }
+  }
+
   @Test
   public void testCanonicalForm() throws Exception {
     Dimension nativeDims = new Dimension(800, 600);
@@ -291,4 +335,140 @@ public class SelectorTest {
         .hasFieldOrPropertyWithValue("format", ImageApiProfile.Format.JPG)
         .hasToString("http:%2F%2Fexample.com%2F%3F54%23a/full/full/0/default.jpg");
   }
+
+  @Test
+  public void testUrlEncode() throws Exception {
+    ImageApiSelector selector = ImageApiSelector.fromString("id/full/max/0/default.jpg");
+    selector.setIdentifier("Stra\u00dfe 12$A/\ud83d\uddbc");
+    assertThat(selector)
+        .hasToString("Stra%C3%9Fe%2012$A%2F%F0%9F%96%BC/full/max/0/default.jpg")
+        .satisfies(
+            s ->
+                assertThat(ImageApiSelector.fromString(s.toString()).getIdentifier())
+                    .isEqualTo("Stra\u00dfe 12$A/\ud83d\uddbc"));
+    assertThat(ImageApiSelector.fromString("prefix/id/full/max/0/GRAY.PNG"))
+        .hasToString("id/full/max/0/gray.png");
+    assertThatExceptionOfType(ResolvingException.class)
+        .isThrownBy(() -> ImageApiSelector.fromString("id/full/max/0/default."))
+        .withMessage("Malformed IIIF Image API request: id/full/max/0/default.");
+    assertThatExceptionOfType(ResolvingException.class)
+        .isThrownBy(() -> ImageApiSelector.fromString("id/full/max/0/sepia.jpg"))
+        .withMessage("Illegal value for quality: sepia");
+    assertThatExceptionOfType(ResolvingException.class)
+        .isThrownBy(() -> ImageApiSelector.fromString("id/full/max/0/default.tar.gz"))
+        .withMessage("Illegal value for format: tar.gz");
+  }
+
+  @Test
+  public void testSelectorCache() throws Exception {
+    ImageApiSelectorCache cache = new ImageApiSelectorCache(10);
+    URI uri = URI.create("https://example.com/id/0,0,512,512/256,/0/default.jpg");
+    ImageApiSelector selector = cache.fromImageApiUri(uri);
+    assertThat(cache.fromImageApiUri(uri)).isSameAs(selector);
+    assertThat(selector).hasToString("id/0,0,512,512/256,/0/default.jpg");
+    assertThatExceptionOfType(UnsupportedOperationException.class)
+        .isThrownBy(() -> selector.setRegion("full"));
+    // Resolving doesn't change the shared request
+    assertThat(selector.getRegion().resolve(new Dimension(300, 200)))
+        .isEqualTo(new Rectangle(0, 0, 300, 200));
+    assertThat(selector.getRegion().getRegion()).isEqualTo(new Rectangle(0, 0, 512, 512));
+
+    for (int i = 0; i < 2; i++) {
+      assertThatExceptionOfType(ResolvingException.class)
+          .isThrownBy(() -> cache.fromString("id/full/full/0/sepia.jpg"))
+          .withMessage("Illegal value for quality: sepia");
+    }
+    assertThat(cache.getStats().hitCount()).isEqualTo(2);
+    assertThat(cache.getStats().missCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testCanonicalFormCache() throws Exception {
+    CanonicalFormCache cache = new CanonicalFormCache();
+    Dimension nativeDims = new Dimension(800, 600);
+    ImageApiSelector selector =
+        ImageApiSelector.fromString("id/pct:0,0,50.0,50.0/pct:50/0/gray.jpg");
+    for (int i = 0; i < 2; i++) {
+      assertThat(
+              cache.getCanonicalForm(
+                  selector, nativeDims, ImageApiProfile.LEVEL_TWO, ImageApiProfile.Quality.COLOR))
+          .isEqualTo("id/0,0,400,300/200,/0/gray.jpg");
+    }
+    assertThat(cache.getStats().hitCount()).isEqualTo(1);
+
+    // Changes to the selector and the profile are part of the key
+    selector.setSize("500,");
+    ImageApiProfile profile = new ImageApiProfile();
+    // Requests that can't be resolved are cached with their message
+    for (int i = 0; i < 2; i++) {
+      assertThatExceptionOfType(ResolvingException.class)
+          .isThrownBy(
+              () ->
+                  cache.getCanonicalForm(
+                      selector, nativeDims, profile, ImageApiProfile.Quality.COLOR))
+          .withMessageStartingWith("Requested dimensions (500x375) exceed native dimensions");
+    }
+    assertThat(cache.getStats().hitCount()).isEqualTo(2);
+    profile.addFeature(ImageApiProfile.Feature.SIZE_ABOVE_FULL);
+    assertThat(cache.getCanonicalForm(selector, nativeDims, profile, ImageApiProfile.Quality.GRAY))
+        .isEqualTo("id/0,0,400,300/500,/0/default.jpg");
+
+    // Requests for the maximum size don't need a profile
+    selector.setSize("max");
+    assertThat(cache.getCanonicalForm(selector, nativeDims, null, ImageApiProfile.Quality.GRAY))
+        .isEqualTo(selector.getCanonicalForm(nativeDims, null, ImageApiProfile.Quality.GRAY))
+        .isEqualTo("id/0,0,400,300/full/0/default.jpg");
+  }
+
+  @Test
+  public void testResolveIntoBuffers() throws ResolvingException {
+    Dimension imageDims = new Dimension(300, 200);
+    Rectangle region = new Rectangle();
+    assertThat(RegionRequest.fromString("pct:10,10,50,50").resolve(imageDims, region))
+        .isSameAs(region)
+        .isEqualTo(new Rectangle(30, 20, 150, 100));
+    assertThat(RegionRequest.fromString("full").resolve(imageDims, region))
+        .isEqualTo(new Rectangle(0, 0, 300, 200));
+    // x + w exceeds Integer.MAX_VALUE
+    assertThat(RegionRequest.fromString("10,10,2147483647,2147483647").resolve(imageDims, region))
+        .isEqualTo(new Rectangle(10, 10, 290, 190));
+
+    ImageApiProfile profile = new ImageApiProfile();
+    profile.setMaxWidth(200);
+    Dimension size = new Dimension();
+    List<Dimension> availableSizes =
+        Arrays.asList(new Dimension(150, 100), new Dimension(300, 200));
+    assertThat(SizeRequest.fromString("max").resolve(imageDims, availableSizes, profile, size))
+        .isSameAs(size)
+        .isEqualTo(new Dimension(200, 133));
+    assertThat(availableSizes).containsExactly(new Dimension(150, 100), new Dimension(300, 200));
+    assertThat(SizeRequest.fromString("pct:50").resolve(region, profile, size))
+        .isEqualTo(new Dimension(145, 95));
+
+    // Upscaling is checked against the capabilities if they are given
+    SizeRequest upscaled = SizeRequest.fromString("600,400");
+    profile.setMaxWidth(null);
+    assertThatExceptionOfType(ResolvingException.class)
+        .isThrownBy(() -> upscaled.resolve(imageDims, availableSizes, profile, size))
+        .withMessageContaining("upscaling is not supported");
+    ImageApiProfile upscaling = new ImageApiProfile();
+    upscaling.addFeature(ImageApiProfile.Feature.SIZE_ABOVE_FULL);
+    ImageApiProfile.Capabilities capabilities = upscaling.getCapabilities();
+    assertThat(upscaled.resolve(imageDims, availableSizes, profile, capabilities, size))
+        .isSameAs(size)
+        .isEqualTo(new Dimension(600, 400));
+    assertThat(upscaled.resolve(region, profile, capabilities, size))
+        .isEqualTo(new Dimension(600, 400));
+    assertThatExceptionOfType(ResolvingException.class)
+        .isThrownBy(() -> upscaled.resolve(region, profile, profile.getCapabilities(), size));
+
+    // The area of 50000x50000 pixels exceeds Integer.MAX_VALUE
+    Dimension largeImage = new Dimension(60000, 60000);
+    ImageApiProfile largeProfile = new ImageApiProfile();
+    largeProfile.setMaxArea(1_000_000_000L);
+    SizeRequest largeSize = SizeRequest.fromString("50000,50000");
+    assertThatExceptionOfType(ResolvingException.class)
+        .isThrownBy(() -> largeSize.resolve(largeImage, largeProfile))
+        .withMessageContaining("50000*50000 = 2500000000");
+  }
 }
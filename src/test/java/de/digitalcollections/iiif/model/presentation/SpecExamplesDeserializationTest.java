@@ -2,6 +2,7 @@ package de.digitalcollections.iiif.model.presentation;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.io.Resources;
 import de.digitalcollections.iiif.model.ImageContent;
@@ -15,6 +16,7 @@ import de.digitalcollections.iiif.model.image.ImageApiProfile;
 import de.digitalcollections.iiif.model.image.ImageApiSelector;
 import de.digitalcollections.iiif.model.image.ImageService;
 import de.digitalcollections.iiif.model.jackson.IiifObjectMapper;
+import de.digitalcollections.iiif.model.jackson.LazyValueAccess;
 import de.digitalcollections.iiif.model.openannotation.Annotation;
 import de.digitalcollections.iiif.model.openannotation.ContentAsText;
 import de.digitalcollections.iiif.model.openannotation.SpecificResource;
@@ -311,6 +313,30 @@ public class SpecExamplesDeserializationTest {
     assertThat(otherRange.getCanvases()).hasSize(3);
   }
 
+  @Test
+  public void testLazyProperties() throws Exception {
+    Manifest manifest =
+        ((IiifObjectMapper) mapper)
+            .lazyReader()
+            .forType(Manifest.class)
+            .readValue(Resources.getResource("spec/presentation/full_response.json"));
+    assertThat(LazyValueAccess.get(manifest, "structures")).isNotNull();
+    assertThat(LazyValueAccess.get(manifest, "metadata")).isNotNull();
+
+    // Unbound properties are written as they were read
+    JsonNode specTree =
+        mapper.readTree(Resources.getResource("spec/presentation/full_response.json"));
+    JsonNode tree = mapper.valueToTree(manifest);
+    assertThat(tree.get("structures")).isEqualTo(specTree.get("structures"));
+    assertThat(LazyValueAccess.get(manifest, "structures")).isNotNull();
+
+    assertThat(manifest.getRanges()).hasSize(1);
+    assertThat(manifest.getRanges().get(0).getLabelString()).isEqualTo("Introduction");
+    assertThat(LazyValueAccess.get(manifest, "structures")).isNull();
+    assertThat(manifest.getMetadata()).hasSize(2);
+    assertThat(LazyValueAccess.get(manifest, "metadata")).isNull();
+  }
+
   @Test
   public void testSequence() throws Exception {
     Sequence seq = readFromResources("sequence.json", Sequence.class);